@@ -1,7 +1,48 @@
+import api.ApiServer;
 import ui.FlightBookingApp;
+import service.BookingExporter;
+import service.ApplicationContext;
+
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.io.IOException;
+import java.sql.SQLException;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException, SQLException {
+        // --server [port] runs the JSON API instead of the console UI
+        if (args.length > 0 && args[0].equals("--server")) {
+            int port = args.length > 1 ? Integer.parseInt(args[1]) : ApiServer.DEFAULT_PORT;
+            ApplicationContext context = ApplicationContext.getInstance();
+            System.out.println(context.warmUp().join());
+            new ApiServer(context, port).start();
+            return;
+        }
+
+        // --export-bookings <file> [csv|ndjson] writes every booking to a file and exits
+        if (args.length > 0 && args[0].equals("--export-bookings")) {
+            BookingExporter.Format format = null;
+            if (args.length == 2) {
+                format = BookingExporter.Format.CSV;
+            } else if (args.length == 3) {
+                for (BookingExporter.Format candidate : BookingExporter.Format.values()) {
+                    if (candidate.name().equals(args[2].toUpperCase(Locale.ROOT))) {
+                        format = candidate;
+                    }
+                }
+            }
+            if (format == null) {
+                System.out.println("Usage: Main --export-bookings <file> [csv|ndjson]");
+                System.exit(2);
+            }
+            ApplicationContext context = ApplicationContext.getInstance();
+            context.migrateSchema();
+            BookingExporter exporter = new BookingExporter(context.getBookingDAO());
+            long count = exporter.export(Paths.get(args[1]), format);
+            System.out.println("Exported " + count + " bookings to " + args[1]);
+            return;
+        }
+
         FlightBookingApp app = new FlightBookingApp();
         app.start();
     }
@@ -0,0 +1,290 @@
+package api;
+
+import model.User;
+import model.Flight;
+import model.Booking;
+import model.Session;
+import service.AuthService;
+import service.FlightService;
+import service.BookingService;
+import service.ApplicationContext;
+
+import java.util.Map;
+import java.util.List;
+import java.util.HashMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.time.LocalDate;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Headless JSON API over the JDK HTTP server. Every request runs on its own virtual thread,
+ * so requests blocked on JDBC do not tie up platform threads; the connection pool is what
+ * bounds database concurrency.
+ *
+ * POST   /api/login              username, password -> session token
+ * POST   /api/logout             ends the caller's session
+ * GET    /api/flights            origin, destination, date (yyyy-MM-dd)
+ * GET    /api/bookings           the caller's bookings
+ * POST   /api/bookings           flightNumber -> new booking; an Idempotency-Key header makes retries safe
+ *                                 (422 if the key was already used for a different flight)
+ * DELETE /api/bookings/{id}      cancels one of the caller's bookings
+ *
+ * Request parameters are form encoded (query string or body); authenticated calls
+ * send the token as "Authorization: Bearer &lt;token&gt;". Database failures, including
+ * running out of pooled connections, are answered with 503.
+ */
+public class ApiServer {
+    public static final int DEFAULT_PORT = 8080;
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+    private static final String BOOKINGS_PATH = "/api/bookings";
+
+    private final AuthService authService;
+    private final FlightService flightService;
+    private final BookingService bookingService;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public ApiServer(ApplicationContext context, int port) throws IOException {
+        this.authService = context.getAuthService();
+        this.flightService = context.getFlightService();
+        this.bookingService = context.getBookingService();
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(executor);
+        server.createContext("/api/login", route(this::login));
+        server.createContext("/api/logout", route(this::logout));
+        server.createContext("/api/flights", route(this::searchFlights));
+        server.createContext(BOOKINGS_PATH, route(this::bookings));
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("API server listening on port " + getPort());
+    }
+
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void login(HttpExchange exchange) throws IOException {
+        requireMethod(exchange, "POST");
+        Map<String, String> params = readParams(exchange);
+        Session session = authService.openSession(params.get("username"), params.get("password"));
+        if (session == null) {
+            throw new ApiException(401, "Invalid username or password");
+        }
+        send(exchange, 200, Json.object()
+            .field("token", session.getToken())
+            .raw("user", Json.user(session.getUser()))
+            .toString());
+    }
+
+    private void logout(HttpExchange exchange) throws IOException {
+        requireMethod(exchange, "POST");
+        authService.closeSession(bearerToken(exchange));
+        send(exchange, 204, null);
+    }
+
+    private void searchFlights(HttpExchange exchange) throws IOException {
+        requireMethod(exchange, "GET");
+        Map<String, String> params = readParams(exchange);
+        String origin = requireParam(params, "origin");
+        String destination = requireParam(params, "destination");
+        LocalDate date;
+        try {
+            date = LocalDate.parse(requireParam(params, "date"));
+        } catch (DateTimeParseException e) {
+            throw new ApiException(400, "date must be in yyyy-MM-dd format");
+        }
+
+        List<Flight> flights = call(() -> flightService.trySearchFlights(origin, destination, date.atStartOfDay()));
+        send(exchange, 200, Json.array(flights, Json::flight));
+    }
+
+    private void bookings(HttpExchange exchange) throws IOException {
+        User user = requireUser(exchange);
+        String path = exchange.getRequestURI().getPath();
+        String bookingId = path.length() > BOOKINGS_PATH.length() + 1 ? path.substring(BOOKINGS_PATH.length() + 1) : null;
+
+        if (bookingId == null) {
+            switch (exchange.getRequestMethod()) {
+                case "GET":
+                    send(exchange, 200, Json.array(call(() -> bookingService.tryGetBookingsByUsername(user.getUsername())), Json::booking));
+                    return;
+                case "POST":
+                    createBooking(exchange, user);
+                    return;
+                default:
+                    throw new ApiException(405, "Method not allowed");
+            }
+        }
+
+        requireMethod(exchange, "DELETE");
+        if (!call(() -> bookingService.tryCancelBooking(bookingId, user))) {
+            throw new ApiException(404, "Booking not found");
+        }
+        send(exchange, 204, null);
+    }
+
+    private void createBooking(HttpExchange exchange, User user) throws IOException {
+        String flightNumber = requireParam(readParams(exchange), "flightNumber");
+        Flight flight = call(() -> flightService.tryGetFlightByNumber(flightNumber));
+        if (flight == null) {
+            throw new ApiException(404, "Flight not found");
+        }
+        String idempotencyKey = exchange.getRequestHeaders().getFirst("Idempotency-Key");
+        if (idempotencyKey != null && (idempotencyKey.isEmpty() || idempotencyKey.length() > BookingService.MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            throw new ApiException(400, "Idempotency-Key must be 1 to " + BookingService.MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+        // The key is well formed, so a rejection means it was used before for another flight
+        Booking booking = call(() -> bookingService.tryCreateBooking(user, flight, idempotencyKey), 422);
+        if (booking == null) {
+            throw new ApiException(409, "No seats available on flight " + flightNumber);
+        }
+        send(exchange, 201, Json.booking(booking));
+    }
+
+    // Runs a service call on the request's own virtual thread. The try* service methods throw
+    // SQLException instead of returning null, so an outage is reported as one rather than as
+    // "not found", and nothing is left running once the response has been sent.
+    private static <T> T call(ServiceCall<T> serviceCall) {
+        return call(serviceCall, 400);
+    }
+
+    // invalidStatus is the status for an IllegalArgumentException, i.e. a request the service rejected
+    private static <T> T call(ServiceCall<T> serviceCall, int invalidStatus) {
+        try {
+            return serviceCall.call();
+        } catch (SQLException e) {
+            System.out.println("Service unavailable: " + e);
+            throw new ApiException(503, "Service temporarily unavailable");
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(invalidStatus, e.getMessage());
+        }
+    }
+
+    private User requireUser(HttpExchange exchange) {
+        User user = authService.validateSession(bearerToken(exchange));
+        if (user == null) {
+            throw new ApiException(401, "Missing or expired session");
+        }
+        return user;
+    }
+
+    private static String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        return header.substring(7).trim();
+    }
+
+    private static void requireMethod(HttpExchange exchange, String method) {
+        if (!method.equals(exchange.getRequestMethod())) {
+            throw new ApiException(405, "Method not allowed");
+        }
+    }
+
+    private static String requireParam(Map<String, String> params, String name) {
+        String value = params.get(name);
+        if (value == null || value.trim().isEmpty()) {
+            throw new ApiException(400, "Missing parameter: " + name);
+        }
+        return value.trim();
+    }
+
+    // Query string parameters, overridden by a form encoded body if there is one
+    private static Map<String, String> readParams(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        parseForm(exchange.getRequestURI().getRawQuery(), params);
+
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new ApiException(413, "Request body too large");
+            }
+            parseForm(new String(body, StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    private static void parseForm(String form, Map<String, String> params) {
+        if (form == null || form.isEmpty()) {
+            return;
+        }
+        for (String pair : form.split("&")) {
+            int eq = pair.indexOf('=');
+            String name = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            try {
+                params.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(400, "Malformed parameters");
+            }
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        if (json == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // Turns ApiExceptions into their status code and anything unexpected into a 500
+    private static HttpHandler route(Endpoint endpoint) {
+        return exchange -> {
+            try {
+                endpoint.handle(exchange);
+            } catch (ApiException e) {
+                send(exchange, e.status, Json.error(e.getMessage()));
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                send(exchange, 500, Json.error("Internal server error"));
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    private interface Endpoint {
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    private interface ServiceCall<T> {
+        T call() throws SQLException;
+    }
+
+    private static class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
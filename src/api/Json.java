@@ -0,0 +1,139 @@
+package api;
+
+import model.User;
+import model.Flight;
+import model.Booking;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Minimal JSON encoding for the API responses. Only writes; requests are form encoded.
+ */
+final class Json {
+    private final StringBuilder out = new StringBuilder();
+    private boolean first = true;
+
+    private Json() {
+        out.append('{');
+    }
+
+    static Json object() {
+        return new Json();
+    }
+
+    Json field(String name, String value) {
+        key(name);
+        if (value == null) {
+            out.append("null");
+        } else {
+            quote(out, value);
+        }
+        return this;
+    }
+
+    Json field(String name, Object value) {
+        return field(name, value == null ? null : value.toString());
+    }
+
+    Json field(String name, long value) {
+        key(name);
+        out.append(value);
+        return this;
+    }
+
+    Json field(String name, double value) {
+        key(name);
+        out.append(value);
+        return this;
+    }
+
+    // Embeds already encoded JSON, e.g. a nested object or array
+    Json raw(String name, String json) {
+        key(name);
+        out.append(json);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return out + "}";
+    }
+
+    static String error(String message) {
+        return object().field("error", message).toString();
+    }
+
+    static <T> String array(List<T> items, Function<T, String> encoder) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(encoder.apply(items.get(i)));
+        }
+        return sb.append(']').toString();
+    }
+
+    static String user(User user) {
+        return object()
+            .field("username", user.getUsername())
+            .field("name", user.getFullName())
+            .field("email", user.getEmail())
+            .field("role", user.getRole())
+            .toString();
+    }
+
+    static String flight(Flight flight) {
+        return object()
+            .field("flightNumber", flight.getFlightNumber())
+            .field("airline", flight.getAirline())
+            .field("origin", flight.getOrigin())
+            .field("destination", flight.getDestination())
+            .field("departureTime", flight.getDepartureTime())
+            .field("arrivalTime", flight.getArrivalTime())
+            .field("totalSeats", flight.getTotalSeats())
+            .field("availableSeats", flight.getAvailableSeats())
+            .field("price", flight.getPrice())
+            .toString();
+    }
+
+    static String booking(Booking booking) {
+        return object()
+            .field("bookingId", booking.getBookingId())
+            .field("username", booking.getUser().getUsername())
+            .field("status", booking.getStatus())
+            .field("bookingDate", booking.getBookingDate())
+            .raw("flight", flight(booking.getFlight()))
+            .toString();
+    }
+
+    private void key(String name) {
+        if (!first) {
+            out.append(',');
+        }
+        first = false;
+        quote(out, name);
+        out.append(':');
+    }
+
+    private static void quote(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -11,6 +11,8 @@ public class Booking implements Serializable {
     private Flight flight;
     private LocalDateTime bookingTime;
     private String status;
+    // Client-supplied key that makes retries of the same booking request return this booking
+    private String idempotencyKey;
 
     public Booking(User user, Flight flight) {
         this.bookingId = UUID.randomUUID().toString().substring(0, 8);
@@ -58,6 +60,14 @@ public class Booking implements Serializable {
         this.status = status;
     }
 
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
     @Override
     public String toString() {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
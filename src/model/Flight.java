@@ -3,6 +3,8 @@ package model;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Flight implements Serializable {
     private String flightNumber;
@@ -12,8 +14,12 @@ public class Flight implements Serializable {
     private LocalDateTime departureTime;
     private LocalDateTime arrivalTime;
     private int totalSeats;
-    private int availableSeats;
+    // Updated with compare-and-set so concurrent bookings on the same flight cannot oversell
+    private final AtomicInteger availableSeats;
     private double price;
+    // Row version read from the database; updates only apply if it still matches.
+    // Seat changes bump it concurrently, so it is atomic like the seat count.
+    private final AtomicLong version = new AtomicLong();
 
     public Flight(String flightNumber, String airline, String origin, String destination,
                   LocalDateTime departureTime, LocalDateTime arrivalTime, int totalSeats, double price) {
@@ -24,7 +30,7 @@ public class Flight implements Serializable {
         this.departureTime = departureTime;
         this.arrivalTime = arrivalTime;
         this.totalSeats = totalSeats;
-        this.availableSeats = totalSeats;
+        this.availableSeats = new AtomicInteger(totalSeats);
         this.price = price;
     }
 
@@ -85,11 +91,11 @@ public class Flight implements Serializable {
     }
 
     public int getAvailableSeats() {
-        return availableSeats;
+        return availableSeats.get();
     }
 
     public void setAvailableSeats(int availableSeats) {
-        this.availableSeats = availableSeats;
+        this.availableSeats.set(availableSeats);
     }
 
     public double getPrice() {
@@ -100,17 +106,40 @@ public class Flight implements Serializable {
         this.price = price;
     }
 
+    public long getVersion() {
+        return version.get();
+    }
+
+    public void setVersion(long version) {
+        this.version.set(version);
+    }
+
+    // Mirrors a version bump already committed to the row, e.g. by a seat reservation
+    public void incrementVersion() {
+        version.incrementAndGet();
+    }
+
     public boolean bookSeat() {
-        if (availableSeats > 0) {
-            availableSeats--;
-            return true;
+        while (true) {
+            int seats = availableSeats.get();
+            if (seats <= 0) {
+                return false;
+            }
+            if (availableSeats.compareAndSet(seats, seats - 1)) {
+                return true;
+            }
         }
-        return false;
     }
 
-    public void cancelSeat() {
-        if (availableSeats < totalSeats) {
-            availableSeats++;
+    public boolean cancelSeat() {
+        while (true) {
+            int seats = availableSeats.get();
+            if (seats >= totalSeats) {
+                return false;
+            }
+            if (availableSeats.compareAndSet(seats, seats + 1)) {
+                return true;
+            }
         }
     }
 
@@ -124,6 +153,6 @@ public class Flight implements Serializable {
         return String.format("%-10s | %-15s | %-15s | %-15s | %-20s | %-20s | %-5d | $%.2f",
                 flightNumber, airline, origin, destination, 
                 formatDateTime(departureTime), formatDateTime(arrivalTime), 
-                availableSeats, price);
+                availableSeats.get(), price);
     }
 }
@@ -0,0 +1,154 @@
+package model;
+
+import java.util.Set;
+import java.util.Locale;
+import java.util.EnumSet;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * A flight that operates on the same days every week between two dates. Concrete flights are
+ * created from it one date at a time, numbered "<flight number>-<yyyyMMdd>".
+ */
+public class FlightSchedule {
+    // Leaves room for the "-yyyyMMdd" suffix in the 20 character flights.flight_number column
+    public static final int MAX_FLIGHT_NUMBER_LENGTH = 11;
+    private static final DateTimeFormatter INSTANCE_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private String flightNumber;
+    private String airline;
+    private String origin;
+    private String destination;
+    private LocalTime departureTime;
+    private LocalTime arrivalTime;
+    private Set<DayOfWeek> daysOfWeek;
+    private LocalDate validFrom;
+    private LocalDate validTo;
+    private int totalSeats;
+    private double price;
+
+    public FlightSchedule(String flightNumber, String airline, String origin, String destination,
+                          LocalTime departureTime, LocalTime arrivalTime, Set<DayOfWeek> daysOfWeek,
+                          LocalDate validFrom, LocalDate validTo, int totalSeats, double price) {
+        this.flightNumber = flightNumber;
+        this.airline = airline;
+        this.origin = origin;
+        this.destination = destination;
+        this.departureTime = departureTime;
+        this.arrivalTime = arrivalTime;
+        this.daysOfWeek = daysOfWeek.isEmpty() ? EnumSet.noneOf(DayOfWeek.class) : EnumSet.copyOf(daysOfWeek);
+        this.validFrom = validFrom;
+        this.validTo = validTo;
+        this.totalSeats = totalSeats;
+        this.price = price;
+    }
+
+    public String getFlightNumber() {
+        return flightNumber;
+    }
+
+    public String getAirline() {
+        return airline;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public LocalTime getDepartureTime() {
+        return departureTime;
+    }
+
+    // Earlier than or equal to the departure time for flights that land the next day
+    public LocalTime getArrivalTime() {
+        return arrivalTime;
+    }
+
+    public Set<DayOfWeek> getDaysOfWeek() {
+        return Collections.unmodifiableSet(daysOfWeek);
+    }
+
+    public LocalDate getValidFrom() {
+        return validFrom;
+    }
+
+    public LocalDate getValidTo() {
+        return validTo;
+    }
+
+    public int getTotalSeats() {
+        return totalSeats;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public boolean operatesOn(LocalDate date) {
+        return !date.isBefore(validFrom) && !date.isAfter(validTo) && daysOfWeek.contains(date.getDayOfWeek());
+    }
+
+    public String getInstanceNumber(LocalDate date) {
+        return flightNumber + "-" + date.format(INSTANCE_DATE);
+    }
+
+    // The flight departing on the given date, with every seat free
+    public Flight createFlight(LocalDate date) {
+        LocalDateTime departure = date.atTime(departureTime);
+        LocalDateTime arrival = date.atTime(arrivalTime);
+        if (!arrival.isAfter(departure)) {
+            arrival = arrival.plusDays(1);
+        }
+        return new Flight(getInstanceNumber(date), airline, origin, destination, departure, arrival, totalSeats, price);
+    }
+
+    // The departure date encoded in an instance number, or null if it is not one of this schedule's
+    public LocalDate parseInstanceDate(String instanceNumber) {
+        if (instanceNumber.length() != flightNumber.length() + 9 || !instanceNumber.startsWith(flightNumber)
+                || instanceNumber.charAt(flightNumber.length()) != '-') {
+            return null;
+        }
+        try {
+            return LocalDate.parse(instanceNumber.substring(flightNumber.length() + 1), INSTANCE_DATE);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    // Days written as a comma separated list of names or three letter abbreviations, e.g. "Mon,Wed,Fri".
+    // Returns null if any entry is not a day.
+    public static Set<DayOfWeek> parseDays(String text) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (String part : text.split(",")) {
+            String name = part.trim().toUpperCase(Locale.ROOT);
+            DayOfWeek match = null;
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if (name.length() >= 3 && day.name().startsWith(name)) {
+                    match = day;
+                    break;
+                }
+            }
+            if (match == null) {
+                return null;
+            }
+            days.add(match);
+        }
+        return days;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-8s | %-15s | %-15s | %-15s | %s-%s | %s | %s to %s | %d seats | $%.2f",
+                flightNumber, airline, origin, destination, departureTime, arrivalTime,
+                daysOfWeek, validFrom, validTo, totalSeats, price);
+    }
+}
@@ -0,0 +1,49 @@
+package model;
+
+import java.util.UUID;
+import java.time.LocalDateTime;
+
+public class SeatHold {
+    private final String holdId;
+    private final String flightNumber;
+    private final String username;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime expiresAt;
+
+    public SeatHold(String flightNumber, String username, LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.holdId = UUID.randomUUID().toString();
+        this.flightNumber = flightNumber;
+        this.username = username;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getHoldId() {
+        return holdId;
+    }
+
+    public String getFlightNumber() {
+        return flightNumber;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired() {
+        return !LocalDateTime.now().isBefore(expiresAt);
+    }
+
+    @Override
+    public String toString() {
+        return "Hold " + holdId + " on " + flightNumber + " for " + username + " until " + expiresAt;
+    }
+}
@@ -0,0 +1,35 @@
+package model;
+
+public class Session {
+    private final String token;
+    private final User user;
+    private final long createdAt;
+    private volatile long lastAccessedAt;
+
+    public Session(String token, User user, long createdAt) {
+        this.token = token;
+        this.user = user;
+        this.createdAt = createdAt;
+        this.lastAccessedAt = createdAt;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getLastAccessedAt() {
+        return lastAccessedAt;
+    }
+
+    public void touch(long now) {
+        lastAccessedAt = now;
+    }
+}
@@ -0,0 +1,63 @@
+package model;
+
+import java.time.LocalDateTime;
+
+public class WaitlistEntry {
+    // Higher tiers are served first; within a tier the earliest request wins
+    public static final int PRIORITY_STANDARD = 0;
+    public static final int PRIORITY_HIGH = 10;
+
+    private long id;
+    private String username;
+    private String flightNumber;
+    private int priority;
+    private String status;
+    private LocalDateTime createdAt;
+    private String bookingId;
+
+    public WaitlistEntry(long id, String username, String flightNumber, int priority, String status,
+                         LocalDateTime createdAt, String bookingId) {
+        this.id = id;
+        this.username = username;
+        this.flightNumber = flightNumber;
+        this.priority = priority;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.bookingId = bookingId;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getFlightNumber() {
+        return flightNumber;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    // Set once the entry has been promoted to a booking
+    public String getBookingId() {
+        return bookingId;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Waitlist #%d | User: %s | Flight: %s | Priority: %d | Status: %s",
+                id, username, flightNumber, priority, status);
+    }
+}
@@ -0,0 +1,140 @@
+package service;
+
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds the DAOs and services once per process so every UI and helper shares
+ * the same flight cache, user index and connection pool.
+ */
+public class ApplicationContext {
+    private static volatile ApplicationContext instance;
+
+    private final UserDAO userDAO;
+    private final FlightDAO flightDAO;
+    private final BookingDAO bookingDAO;
+    private final WaitlistDAO waitlistDAO;
+    private final ScheduleDAO scheduleDAO;
+    private final FlightService flightService;
+    private final AuthService authService;
+    private final BookingService bookingService;
+    private final FlightImporter flightImporter;
+    private CompletableFuture<StartupReport> warmUp;
+    // Result of the schema migration, once it has run in this process
+    private String schemaResult;
+
+    // Only wires objects together; loading data is left to warmUp() so a UI can appear first
+    private ApplicationContext() {
+        this.userDAO = new UserDAO();
+        this.flightDAO = new FlightDAO();
+        this.bookingDAO = new BookingDAO();
+        this.waitlistDAO = new WaitlistDAO();
+        this.scheduleDAO = new ScheduleDAO();
+        this.flightService = new FlightService(flightDAO, scheduleDAO);
+        this.authService = new AuthService(userDAO, Boolean.getBoolean("auth.lazyUsers"));
+        this.bookingService = new BookingService(flightService, userDAO, bookingDAO, waitlistDAO);
+        this.flightImporter = new FlightImporter(flightDAO, flightService);
+    }
+
+    public static ApplicationContext getInstance() {
+        ApplicationContext context = instance;
+        if (context == null) {
+            synchronized (ApplicationContext.class) {
+                context = instance;
+                if (context == null) {
+                    context = new ApplicationContext();
+                    instance = context;
+                }
+            }
+        }
+        return context;
+    }
+
+    // Runs schema migrations on the calling thread, so every service sees the current schema
+    // from its first query, then loads users, flights and the booking count in parallel on
+    // background threads. Safe to call more than once; later calls return the same future.
+    public synchronized CompletableFuture<StartupReport> warmUp() {
+        if (warmUp != null) {
+            return warmUp;
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(3, r -> {
+            Thread t = new Thread(r, "startup-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        StartupReport report = new StartupReport();
+        report.time("schema", this::migrateSchema);
+
+        CompletableFuture<Void> users = CompletableFuture.runAsync(
+            () -> report.time("users", () -> authService.warmUp() + " cached"), executor);
+        CompletableFuture<Void> flights = CompletableFuture.runAsync(
+            () -> report.time("flights", () -> flightService.warmUp() + " cached"), executor);
+        CompletableFuture<Void> bookings = CompletableFuture.runAsync(
+            () -> report.time("bookings", () -> bookingService.warmUp() + " total"), executor);
+
+        warmUp = CompletableFuture.allOf(users, flights, bookings).handle((ignored, error) -> {
+            executor.shutdown();
+            if (error != null) {
+                System.out.println("Error during startup: " + error.getMessage());
+            }
+            report.finish();
+            return report;
+        });
+        return warmUp;
+    }
+
+    // Brings the database schema up to date. Entry points that skip warmUp() must call this
+    // before using any DAO. Only the first call does any work.
+    public synchronized String migrateSchema() {
+        if (schemaResult == null) {
+            try {
+                schemaResult = new SchemaMigrator().migrate() + " applied";
+            } catch (SQLException e) {
+                System.out.println("Error migrating database schema: " + e.getMessage());
+                return "failed";
+            }
+        }
+        return schemaResult;
+    }
+
+    public UserDAO getUserDAO() {
+        return userDAO;
+    }
+
+    public FlightDAO getFlightDAO() {
+        return flightDAO;
+    }
+
+    public BookingDAO getBookingDAO() {
+        return bookingDAO;
+    }
+
+    public WaitlistDAO getWaitlistDAO() {
+        return waitlistDAO;
+    }
+
+    public ScheduleDAO getScheduleDAO() {
+        return scheduleDAO;
+    }
+
+    public FlightService getFlightService() {
+        return flightService;
+    }
+
+    public AuthService getAuthService() {
+        return authService;
+    }
+
+    public BookingService getBookingService() {
+        return bookingService;
+    }
+
+    public FlightImporter getFlightImporter() {
+        return flightImporter;
+    }
+}
@@ -0,0 +1,69 @@
+package service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded worker pool behind the services' *Async methods. Sized like the connection pool by
+ * default, since most tasks end up waiting on a connection anyway, with a bounded queue so a
+ * burst is rejected instead of piling up. Each call gets a timeout.
+ */
+final class AsyncExecutor {
+    // Overridable with -Dservice.async.* system properties
+    private static final int THREADS = Integer.getInteger("service.async.threads", Integer.getInteger("db.pool.maxSize", 10));
+    private static final int QUEUE_SIZE = Integer.getInteger("service.async.queueSize", 1000);
+    static final long DEFAULT_TIMEOUT_MS = Long.getLong("service.async.timeoutMs", 10_000L);
+
+    private final ThreadPoolExecutor executor;
+
+    private AsyncExecutor(int threads, int queueSize) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueSize), r -> {
+                Thread t = new Thread(r, "service-async-" + threadCount.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    private static class Holder {
+        private static final AsyncExecutor INSTANCE = new AsyncExecutor(THREADS, QUEUE_SIZE);
+    }
+
+    static AsyncExecutor getDefault() {
+        return Holder.INSTANCE;
+    }
+
+    <T> CompletableFuture<T> submit(Callable<T> task) {
+        return submit(task, DEFAULT_TIMEOUT_MS);
+    }
+
+    // Runs the task on the pool. Exceptions it throws, including SQLException, complete the future
+    // exceptionally. On timeout the future fails with a TimeoutException; a task that has already
+    // started keeps running, one still queued is skipped.
+    <T> CompletableFuture<T> submit(Callable<T> task, long timeoutMillis) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(task.call());
+                } catch (Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        return future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+}
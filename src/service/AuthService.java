@@ -2,63 +2,171 @@ package service;
 
 import model.User;
 import model.Admin;
+import model.Session;
 import model.Customer;
 
+import java.util.Map;
 import java.util.List;
+import java.util.Locale;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class AuthService {
-    private List<User> users;
-    private User currentUser;
+    private static final int USER_CACHE_SIZE = Integer.getInteger("auth.userCacheSize", 10_000);
+    private static final long SESSION_IDLE_TIMEOUT_MS = Long.getLong("auth.sessionIdleTimeoutMs", 30 * 60_000L);
 
-    public AuthService() {
-        this.users = FileService.loadUsers();
-        this.currentUser = null;
+    private final UserDAO userDAO;
+    // In lazy mode users are fetched by username on first access and kept in a bounded LRU cache
+    private final boolean lazyLoading;
+    // Primary index by username plus a secondary index by normalized email for duplicate checks.
+    // The email index is only kept in eager mode; lazy mode asks the database instead.
+    private final Map<String, User> usersByUsername;
+    private final Map<String, User> usersByEmail = new ConcurrentHashMap<>();
+    // Set once the eager index holds every user; until then lookups fall back to the database
+    private volatile boolean usersLoaded;
+    private final SessionRegistry sessions = new SessionRegistry(SESSION_IDLE_TIMEOUT_MS);
+    // Session of the user logged in through login(), for the single-user desktop and console UIs
+    private volatile String localSessionToken;
+    // Users changed since the last flush, keyed by username so repeated edits coalesce
+    private final Map<String, User> dirtyUsers = new LinkedHashMap<>();
+
+    // Does no database work; call warmUp() to load users and create the default admin
+    public AuthService(UserDAO userDAO, boolean lazyLoading) {
+        this.userDAO = userDAO;
+        this.lazyLoading = lazyLoading;
+        if (lazyLoading) {
+            this.usersByUsername = Collections.synchronizedMap(new LinkedHashMap<String, User>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, User> eldest) {
+                    return size() > USER_CACHE_SIZE;
+                }
+            });
+        } else {
+            this.usersByUsername = new ConcurrentHashMap<>();
+        }
+    }
+
+    // Loads every user into the index (eager mode only) and creates the default admin.
+    // Returns the number of users held in memory afterwards.
+    public synchronized int warmUp() {
+        if (!lazyLoading && !usersLoaded) {
+            try {
+                for (User user : userDAO.getAllUsers()) {
+                    usersByUsername.putIfAbsent(user.getUsername(), user);
+                    indexEmail(user);
+                }
+                usersLoaded = true;
+            } catch (SQLException e) {
+                System.out.println("Error loading users: " + e.getMessage());
+            }
+        }
         
         // Create default admin if not exists
         if (getUserByUsername("admin") == null) {
             registerAdmin("admin", "admin123", "Administrator", "admin@flight.com");
         }
+        return usersByUsername.size();
     }
 
     public User login(String username, String password) {
-        for (User user : users) {
-            if (user.getUsername().equals(username) && user.getPassword().equals(password)) {
-                currentUser = user;
-                return user;
-            }
+        Session session = openSession(username, password);
+        if (session == null) {
+            return null;
         }
-        return null;
+        String previous = localSessionToken;
+        localSessionToken = session.getToken();
+        sessions.close(previous);
+        return session.getUser();
     }
 
     public void logout() {
-        currentUser = null;
+        sessions.close(localSessionToken);
+        localSessionToken = null;
     }
 
-    public User getCurrentUser() {
-        return currentUser;
+    // Checks the password and starts a new session; the token identifies the caller on later requests.
+    // Returns null if the credentials are wrong.
+    public Session openSession(String username, String password) {
+        User user = getUserByUsername(username);
+        if (user == null || !user.getPassword().equals(password)) {
+            return null;
+        }
+        return sessions.open(user);
+    }
+
+    // The user owning the token, or null if the session is unknown, closed or has timed out
+    public User validateSession(String token) {
+        Session session = sessions.validate(token);
+        return session != null ? session.getUser() : null;
+    }
+
+    public boolean closeSession(String token) {
+        return sessions.close(token);
+    }
+
+    public int getActiveSessionCount() {
+        return sessions.size();
     }
 
     public User getUserByUsername(String username) {
-        for (User user : users) {
-            if (user.getUsername().equals(username)) {
-                return user;
+        if (username == null) {
+            return null;
+        }
+        User user = usersByUsername.get(username);
+        if (user == null && !isIndexComplete()) {
+            try {
+                user = userDAO.getUserByUsername(username);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return null;
+            }
+            if (user != null) {
+                User existing = usersByUsername.putIfAbsent(username, user);
+                if (existing != null) {
+                    user = existing;
+                }
             }
         }
-        return null;
+        return user;
     }
 
-    public User register(String username, String password, String fullName, String email) {
-        // Check if username already exists
-        for (User user : users) {
-            if (user.getUsername().equals(username)) {
-                return null;
-            }
+    public boolean isEmailRegistered(String email) {
+        String key = normalizeEmail(email);
+        if (key == null) {
+            return false;
+        }
+        if (isIndexComplete()) {
+            return usersByEmail.containsKey(key);
         }
+        try {
+            return userDAO.emailExists(email.trim());
+        } catch (SQLException e) {
+            e.printStackTrace();
+            // Treat an unknown answer as taken so registration does not create a duplicate
+            return true;
+        }
+    }
+
+    public boolean isLazyLoading() {
+        return lazyLoading;
+    }
 
+    // True when the in-memory index is authoritative, i.e. eager mode after warmUp()
+    private boolean isIndexComplete() {
+        return !lazyLoading && usersLoaded;
+    }
+
+    public User register(String username, String password, String fullName, String email) {
         // Create new customer
         User newUser = new Customer(username, password, fullName, email);
-        users.add(newUser);
-        FileService.saveUsers(users);
+        if (!addUser(newUser)) {
+            return null;
+        }
+        markDirty(newUser);
+        flushUsers();
         return newUser;
     }
 
@@ -68,36 +176,111 @@ public class AuthService {
     }
 
     public boolean registerAdmin(String username, String password, String name, String email) {
-        // Check if username already exists
-        for (User user : users) {
-            if (user.getUsername().equals(username)) {
-                return false;
-            }
-        }
-
         // Create new admin
         User newUser = new Admin(username, password, name, email);
-        users.add(newUser);
-        FileService.saveUsers(users);
+        if (!addUser(newUser)) {
+            return false;
+        }
+        markDirty(newUser);
+        flushUsers();
         return true;
     }
 
     public boolean changePassword(String username, String oldPassword, String newPassword) {
-        for (User user : users) {
-            if (user.getUsername().equals(username) && user.getPassword().equals(oldPassword)) {
-                user.setPassword(newPassword);
-                FileService.saveUsers(users);
-                return true;
-            }
+        User user = getUserByUsername(username);
+        if (user != null && user.getPassword().equals(oldPassword)) {
+            user.setPassword(newPassword);
+            markDirty(user);
+            flushUsers();
+            return true;
         }
         return false;
     }
 
-    public List<User> getAllUsers() {
-        return users;
+    // Claims the username and then the email; backs out if either is already taken
+    private boolean addUser(User user) {
+        if (user.getUsername() == null) {
+            return false;
+        }
+        if (!isIndexComplete()) {
+            // The index does not hold every account yet, so uniqueness has to be checked in the database
+            if (getUserByUsername(user.getUsername()) != null || isEmailRegistered(user.getEmail())) {
+                return false;
+            }
+            if (usersByUsername.putIfAbsent(user.getUsername(), user) != null) {
+                return false;
+            }
+            if (!lazyLoading) {
+                indexEmail(user);
+            }
+            return true;
+        }
+        if (usersByUsername.putIfAbsent(user.getUsername(), user) != null) {
+            return false;
+        }
+        String emailKey = normalizeEmail(user.getEmail());
+        if (emailKey != null && usersByEmail.putIfAbsent(emailKey, user) != null) {
+            usersByUsername.remove(user.getUsername(), user);
+            return false;
+        }
+        return true;
+    }
+
+    private void indexEmail(User user) {
+        String emailKey = normalizeEmail(user.getEmail());
+        if (emailKey != null) {
+            usersByEmail.putIfAbsent(emailKey, user);
+        }
+    }
+
+    private static String normalizeEmail(String email) {
+        if (email == null || email.trim().isEmpty()) {
+            return null;
+        }
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Writes only the users changed since the last flush; failed rows stay queued for the next one
+    public void flushUsers() {
+        List<User> pending;
+        synchronized (dirtyUsers) {
+            if (dirtyUsers.isEmpty()) {
+                return;
+            }
+            pending = new ArrayList<>(dirtyUsers.values());
+            dirtyUsers.clear();
+        }
+
+        if (!FileService.saveUsers(userDAO, pending, FileService.DEFAULT_BATCH_SIZE)) {
+            synchronized (dirtyUsers) {
+                for (User user : pending) {
+                    dirtyUsers.putIfAbsent(user.getUsername(), user);
+                }
+            }
+        }
+    }
+
+    private void markDirty(User user) {
+        synchronized (dirtyUsers) {
+            dirtyUsers.put(user.getUsername(), user);
+        }
+    }
+
+    // One page of users ordered by username, read with a keyset seek on the primary key. Pass null
+    // for the first page and then the previous page's cursor.
+    public Page<User> getUsersPage(String cursor, int pageSize) {
+        String[] key = Page.decodeCursor(cursor, 1);
+        int size = Page.clampPageSize(pageSize);
+        try {
+            List<User> rows = userDAO.getUsersAfter(key == null ? null : key[0], size + 1);
+            return Page.of(rows, size, user -> Page.encodeCursor(user.getUsername()));
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Page.empty();
+        }
     }
-    
+
     public UserDAO getUserDAO() {
-        return FileService.getUserDAO();
+        return userDAO;
     }
 }
@@ -4,37 +4,172 @@ import model.User;
 import java.sql.*;
 import model.Flight;
 import model.Booking;
+import java.util.Map;
 import java.util.List;
+import java.util.HashMap;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.function.Consumer;
+import java.time.LocalDateTime;
 
 public class BookingDAO {
-    private UserDAO userDAO;
-    private FlightService flightService;
-
-    public BookingDAO(UserDAO userDAO, FlightService flightService) {
-        this.userDAO = userDAO;
-        this.flightService = flightService;
-    }
-    private static final String INSERT_BOOKING = "INSERT INTO bookings (booking_id, user_id, flight_number, booking_date, status) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_BOOKING = "INSERT INTO bookings (booking_id, user_id, flight_number, booking_date, status, idempotency_key) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String UPSERT_BOOKING = INSERT_BOOKING
+            + " ON DUPLICATE KEY UPDATE booking_date=VALUES(booking_date), status=VALUES(status)";
     private static final String DELETE_BOOKING = "DELETE FROM bookings WHERE booking_id=?";
-    private static final String GET_BOOKING_BY_ID = "SELECT * FROM bookings WHERE booking_id=?";
-    private static final String GET_ALL_BOOKINGS = "SELECT * FROM bookings";
-    private static final String GET_BOOKINGS_BY_USER = "SELECT * FROM bookings WHERE user_id=?";
+    private static final String COUNT_BOOKINGS = "SELECT COUNT(*) FROM bookings";
+    // MySQL error code for a unique key violation
+    private static final int ER_DUP_ENTRY = 1062;
+
+    // Booking, user and flight come back in one row so no follow-up lookups are needed per booking
+    private static final String SELECT_BOOKING_DETAILS = "SELECT b.booking_id, b.user_id, b.flight_number, b.booking_date, b.status, b.idempotency_key, "
+            + "u.username, u.password, u.email, u.full_name, u.role, "
+            + "f.airline, f.origin, f.destination, f.departure_time, f.arrival_time, f.total_seats, f.available_seats, f.price, f.version "
+            + "FROM bookings b "
+            + "JOIN users u ON u.username = b.user_id "
+            + "JOIN flights f ON f.flight_number = b.flight_number";
+    private static final String GET_BOOKING_BY_ID = SELECT_BOOKING_DETAILS + " WHERE b.booking_id=?";
+    private static final String GET_ALL_BOOKINGS = SELECT_BOOKING_DETAILS;
+    private static final String GET_BOOKINGS_BY_USER = SELECT_BOOKING_DETAILS + " WHERE b.user_id=?";
+    // Newest first; booking_id breaks ties between bookings made in the same second
+    private static final String GET_BOOKINGS_FIRST = SELECT_BOOKING_DETAILS
+            + " ORDER BY b.booking_date DESC, b.booking_id DESC LIMIT ?";
+    private static final String GET_BOOKINGS_BEFORE = SELECT_BOOKING_DETAILS
+            + " WHERE b.booking_date < ? OR (b.booking_date = ? AND b.booking_id < ?)"
+            + " ORDER BY b.booking_date DESC, b.booking_id DESC LIMIT ?";
+    private static final String GET_BOOKINGS_IN_ORDER = SELECT_BOOKING_DETAILS + " ORDER BY b.booking_date, b.booking_id";
+    // Users and flights remembered while streaming; bounded so the export's heap use does not grow with the table
+    private static final int STREAM_IDENTITY_CACHE_SIZE = 1024;
+    private static final String GET_BOOKING_BY_IDEMPOTENCY_KEY = SELECT_BOOKING_DETAILS + " WHERE b.user_id=? AND b.idempotency_key=?";
 
     public void createBooking(Booking booking) throws SQLException {
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(INSERT_BOOKING)) {
-            
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            insertBooking(conn, booking);
+        }
+    }
+
+    // Makes sure the user row exists, takes a seat and records the booking in a single transaction.
+    // Returns false without writing anything if the flight has no seats left.
+    public boolean createBookingWithSeat(Booking booking) throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            UserDAO.ensureUser(conn, booking.getUser());
+            if (!FlightDAO.reserveSeat(conn, booking.getFlight().getFlightNumber())) {
+                conn.rollback();
+                return false;
+            }
+            insertBooking(conn, booking);
+
+            conn.commit();
+            return true;
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+    }
+
+    // Inserts new bookings and updates the status of existing ones, committing once per batch
+    public void upsertBookings(List<Booking> bookings, int batchSize) throws SQLException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(UPSERT_BOOKING)) {
+                int pending = 0;
+                for (Booking booking : bookings) {
+                    stmt.setString(1, booking.getBookingId());
+                    stmt.setString(2, booking.getUser().getUsername());
+                    stmt.setString(3, booking.getFlight().getFlightNumber());
+                    stmt.setTimestamp(4, Timestamp.valueOf(booking.getBookingDate()));
+                    stmt.setString(5, booking.getStatus());
+                    stmt.setString(6, booking.getIdempotencyKey());
+                    stmt.addBatch();
+
+                    if (++pending == batchSize) {
+                        stmt.executeBatch();
+                        conn.commit();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    stmt.executeBatch();
+                    conn.commit();
+                }
+            }
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+    }
+
+    static void insertBooking(Connection conn, Booking booking) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_BOOKING)) {
             stmt.setString(1, booking.getBookingId());
             stmt.setString(2, booking.getUser().getUsername());
             stmt.setString(3, booking.getFlight().getFlightNumber());
             stmt.setTimestamp(4, Timestamp.valueOf(booking.getBookingDate()));
             stmt.setString(5, booking.getStatus());
-            
+            stmt.setString(6, booking.getIdempotencyKey());
+
             stmt.executeUpdate();
         }
     }
 
+    public enum CancelResult { NOT_FOUND, SEAT_RELEASED, SEAT_HANDED_OVER }
+
+    // Deletes the booking and, in the same transaction, gives its seat to the next customer on the
+    // flight's waitlist, or back to the flight if nobody is waiting
+    public CancelResult cancelBookingAndPassSeatOn(String bookingId, String flightNumber) throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(DELETE_BOOKING)) {
+                stmt.setString(1, bookingId);
+                if (stmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return CancelResult.NOT_FOUND;
+                }
+            }
+            boolean handedOver = WaitlistDAO.passSeatOn(conn, flightNumber);
+
+            conn.commit();
+            return handedOver ? CancelResult.SEAT_HANDED_OVER : CancelResult.SEAT_RELEASED;
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+    }
+
     public void cancelBooking(String bookingId) throws SQLException {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(DELETE_BOOKING)) {
@@ -52,21 +187,110 @@ public class BookingDAO {
             ResultSet rs = stmt.executeQuery();
             
             if (rs.next()) {
-                return extractBookingFromResultSet(rs);
+                return extractBookingFromResultSet(rs, new HashMap<>(), new HashMap<>());
             }
             return null;
         }
     }
 
+    // Up to limit bookings, newest first, that come after the given (date, id) position; pass a null
+    // date for the first page
+    public List<Booking> getBookingsBefore(LocalDateTime bookingDate, String bookingId, int limit) throws SQLException {
+        List<Booking> bookings = new ArrayList<>();
+        Map<String, User> users = new HashMap<>();
+        Map<String, Flight> flights = new HashMap<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(bookingDate == null ? GET_BOOKINGS_FIRST : GET_BOOKINGS_BEFORE)) {
+
+            int i = 1;
+            if (bookingDate != null) {
+                Timestamp date = Timestamp.valueOf(bookingDate);
+                stmt.setTimestamp(i++, date);
+                stmt.setTimestamp(i++, date);
+                stmt.setString(i++, bookingId);
+            }
+            stmt.setInt(i, limit);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                bookings.add(extractBookingFromResultSet(rs, users, flights));
+            }
+        }
+        return bookings;
+    }
+
+    // Hands every booking, oldest first, to the visitor one row at a time. The rows are streamed from
+    // the server instead of being buffered, so the connection is busy until the visitor has seen them all.
+    // Returns the number of bookings visited.
+    public long forEachBooking(Consumer<Booking> visitor) throws SQLException {
+        Map<String, User> users = boundedMap(STREAM_IDENTITY_CACHE_SIZE);
+        Map<String, Flight> flights = boundedMap(STREAM_IDENTITY_CACHE_SIZE);
+        long count = 0;
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(GET_BOOKINGS_IN_ORDER, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            // Connector/J streams the result row by row only with this fetch size
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    visitor.accept(extractBookingFromResultSet(rs, users, flights));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static <V> Map<String, V> boundedMap(int maxSize) {
+        return new LinkedHashMap<String, V>(maxSize * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    // The booking the user already made with this idempotency key, or null
+    public Booking getBookingByIdempotencyKey(String username, String idempotencyKey) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(GET_BOOKING_BY_IDEMPOTENCY_KEY)) {
+
+            stmt.setString(1, username);
+            stmt.setString(2, idempotencyKey);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return extractBookingFromResultSet(rs, new HashMap<>(), new HashMap<>());
+            }
+            return null;
+        }
+    }
+
+    static boolean isDuplicateKey(SQLException e) {
+        return e instanceof SQLIntegrityConstraintViolationException || e.getErrorCode() == ER_DUP_ENTRY;
+    }
+
+    public long countBookings() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(COUNT_BOOKINGS)) {
+
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
     public List<Booking> getAllBookings() throws SQLException {
         List<Booking> bookings = new ArrayList<>();
+        Map<String, User> users = new HashMap<>();
+        Map<String, Flight> flights = new HashMap<>();
         
         try (Connection conn = DatabaseConnection.getConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(GET_ALL_BOOKINGS)) {
             
             while (rs.next()) {
-                bookings.add(extractBookingFromResultSet(rs));
+                bookings.add(extractBookingFromResultSet(rs, users, flights));
             }
         }
         return bookings;
@@ -74,6 +298,8 @@ public class BookingDAO {
 
     public List<Booking> getBookingsByUser(String username) throws SQLException {
         List<Booking> bookings = new ArrayList<>();
+        Map<String, User> users = new HashMap<>();
+        Map<String, Flight> flights = new HashMap<>();
         
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(GET_BOOKINGS_BY_USER)) {
@@ -82,29 +308,37 @@ public class BookingDAO {
             ResultSet rs = stmt.executeQuery();
             
             while (rs.next()) {
-                bookings.add(extractBookingFromResultSet(rs));
+                bookings.add(extractBookingFromResultSet(rs, users, flights));
             }
         }
         return bookings;
     }
 
-    private Booking extractBookingFromResultSet(ResultSet rs) throws SQLException {
+    // Users and flights are shared across rows of the same query instead of being rebuilt per booking
+    private Booking extractBookingFromResultSet(ResultSet rs, Map<String, User> users, Map<String, Flight> flights) throws SQLException {
         String username = rs.getString("user_id");
         String flightNumber = rs.getString("flight_number");
-        
-        User user = userDAO.getUserByUsername(username);
-        Flight flight = flightService.getFlightByNumber(flightNumber);
-        
-        if (user == null || flight == null) {
-            return null;
+
+        User user = users.get(username);
+        if (user == null) {
+            user = UserDAO.extractUserFromResultSet(rs);
+            users.put(username, user);
         }
-        
-        return new Booking(
+
+        Flight flight = flights.get(flightNumber);
+        if (flight == null) {
+            flight = FlightDAO.extractFlightFromResultSet(rs);
+            flights.put(flightNumber, flight);
+        }
+
+        Booking booking = new Booking(
             user,
             flight,
             rs.getString("booking_id"),
             rs.getTimestamp("booking_date").toLocalDateTime(),
             rs.getString("status")
         );
+        booking.setIdempotencyKey(rs.getString("idempotency_key"));
+        return booking;
     }
 }
\ No newline at end of file
@@ -0,0 +1,155 @@
+package service;
+
+import model.Flight;
+import model.Booking;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.io.BufferedWriter;
+import java.nio.channels.Channels;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes every booking to a CSV or newline-delimited JSON file as the rows stream in from
+ * the database, so the export runs in constant memory however many bookings there are.
+ * The file is written under a temporary name and moved into place when complete.
+ */
+public class BookingExporter {
+    public enum Format { CSV, NDJSON }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "booking_id,username,flight_number,airline,origin,destination,departure_time,booking_date,status,price";
+
+    private final BookingDAO bookingDAO;
+
+    public BookingExporter(BookingDAO bookingDAO) {
+        this.bookingDAO = bookingDAO;
+    }
+
+    // Returns the number of bookings written
+    public long export(Path target, Format format) throws IOException, SQLException {
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        long count;
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Writer writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+            }
+            count = bookingDAO.forEachBooking(booking -> {
+                try {
+                    if (format == Format.CSV) {
+                        writeCsv(writer, booking);
+                    } else {
+                        writeJson(writer, booking);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+            channel.force(false);
+        } catch (UncheckedIOException e) {
+            Files.deleteIfExists(partial);
+            throw e.getCause();
+        } catch (IOException | SQLException | RuntimeException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    private static void writeCsv(Writer writer, Booking booking) throws IOException {
+        Flight flight = booking.getFlight();
+        writeCsvField(writer, booking.getBookingId());
+        writer.write(',');
+        writeCsvField(writer, booking.getUser().getUsername());
+        writer.write(',');
+        writeCsvField(writer, flight.getFlightNumber());
+        writer.write(',');
+        writeCsvField(writer, flight.getAirline());
+        writer.write(',');
+        writeCsvField(writer, flight.getOrigin());
+        writer.write(',');
+        writeCsvField(writer, flight.getDestination());
+        writer.write(',');
+        writer.write(flight.getDepartureTime().toString());
+        writer.write(',');
+        writer.write(booking.getBookingDate().toString());
+        writer.write(',');
+        writeCsvField(writer, booking.getStatus());
+        writer.write(',');
+        writer.write(Double.toString(flight.getPrice()));
+        writer.write('\n');
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static void writeJson(Writer writer, Booking booking) throws IOException {
+        Flight flight = booking.getFlight();
+        writer.write("{\"bookingId\":");
+        writeJsonString(writer, booking.getBookingId());
+        writer.write(",\"username\":");
+        writeJsonString(writer, booking.getUser().getUsername());
+        writer.write(",\"flightNumber\":");
+        writeJsonString(writer, flight.getFlightNumber());
+        writer.write(",\"airline\":");
+        writeJsonString(writer, flight.getAirline());
+        writer.write(",\"origin\":");
+        writeJsonString(writer, flight.getOrigin());
+        writer.write(",\"destination\":");
+        writeJsonString(writer, flight.getDestination());
+        writer.write(",\"departureTime\":");
+        writeJsonString(writer, flight.getDepartureTime().toString());
+        writer.write(",\"bookingDate\":");
+        writeJsonString(writer, booking.getBookingDate().toString());
+        writer.write(",\"status\":");
+        writeJsonString(writer, booking.getStatus());
+        writer.write(",\"price\":");
+        writer.write(Double.toString(flight.getPrice()));
+        writer.write("}\n");
+    }
+
+    private static void writeJsonString(Writer writer, String value) throws IOException {
+        if (value == null) {
+            writer.write("null");
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                writer.write('\\');
+                writer.write(c);
+            } else if (c < 0x20) {
+                writer.write(String.format("\\u%04x", (int) c));
+            } else {
+                writer.write(c);
+            }
+        }
+        writer.write('"');
+    }
+}
@@ -4,76 +4,325 @@ import model.User;
 import model.Flight;
 import model.Booking;
 import model.Customer;
+import model.SeatHold;
+import model.WaitlistEntry;
+import java.util.Map;
 import java.util.List;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.sql.SQLException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 public class BookingService {
+    public static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+    private static final int IDEMPOTENCY_CACHE_SIZE = Integer.getInteger("booking.idempotencyCacheSize", 10_000);
+
     private BookingDAO bookingDAO;
+    private final WaitlistDAO waitlistDAO;
+    private final WaitlistPromoter waitlistPromoter;
     private FlightService flightService;
     private UserDAO userDAO;
+    // Running total of bookings, read once by warmUp() and kept current by create/cancel; -1 until loaded
+    private final AtomicLong bookingCount = new AtomicLong(-1);
+    private final AsyncExecutor async = AsyncExecutor.getDefault();
+    // Recently created bookings by user and idempotency key, so most retries are answered without a query
+    private final Map<String, Booking> recentBookings = Collections.synchronizedMap(new LinkedHashMap<String, Booking>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Booking> eldest) {
+            return size() > IDEMPOTENCY_CACHE_SIZE;
+        }
+    });
 
     public BookingService(FlightService flightService, UserDAO userDAO) {
-        this.bookingDAO = new BookingDAO(userDAO, flightService);
+        this(flightService, userDAO, new BookingDAO());
+    }
+
+    public BookingService(FlightService flightService, UserDAO userDAO, BookingDAO bookingDAO) {
+        this(flightService, userDAO, bookingDAO, new WaitlistDAO());
+    }
+
+    public BookingService(FlightService flightService, UserDAO userDAO, BookingDAO bookingDAO, WaitlistDAO waitlistDAO) {
+        this.bookingDAO = bookingDAO;
         this.flightService = flightService;
         this.userDAO = userDAO;
+        this.waitlistDAO = waitlistDAO;
+        this.waitlistPromoter = new WaitlistPromoter(waitlistDAO, flightService, booking -> incrementBookingCount(1));
     }
 
     public Booking createBooking(User user, Flight flight) {
+        return createBooking(user, flight, null);
+    }
+
+    // Repeating a call with the same user and idempotency key returns the booking made by the first
+    // one instead of booking another seat. A null key books unconditionally.
+    public Booking createBooking(User user, Flight flight, String idempotencyKey) {
         try {
-            // First check if user exists
-            if (!userDAO.userExists(user.getUsername())) {
-                // حاول إنشاء المستخدم إذا لم يكن موجوداً
-                try {
-                    userDAO.createUser(user);
-                } catch (SQLException e) {
-                    throw new IllegalArgumentException("User does not exist and could not be created: " + e.getMessage());
-                }
+            return tryCreateBooking(user, flight, idempotencyKey);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    // Completes with the booking, or with null if the flight is sold out; database errors
+    // complete the future exceptionally instead of being swallowed
+    public CompletableFuture<Booking> createBookingAsync(User user, Flight flight) {
+        return createBookingAsync(user, flight, null);
+    }
+
+    public CompletableFuture<Booking> createBookingAsync(User user, Flight flight, String idempotencyKey) {
+        return async.submit(() -> tryCreateBooking(user, flight, idempotencyKey));
+    }
+
+    // Like createBooking, but a database error is thrown instead of looking like a sold-out flight.
+    // Runs on the caller's thread, e.g. an API request's virtual thread.
+    public Booking tryCreateBooking(User user, Flight flight, String idempotencyKey) throws SQLException {
+        if (idempotencyKey != null) {
+            if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+                throw new IllegalArgumentException("Idempotency key must be 1 to " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
             }
-            
-            if (flightService.bookFlight(flight)) {
-                Booking booking = new Booking(user, flight);
-                
-                try {
-                    bookingDAO.createBooking(booking);
-                    
-                    // If user is a customer, add booking to their list
-                    if (user instanceof Customer) {
-                        ((Customer) user).addBooking(booking);
+            // A retry is answered with a read, before any seat is reserved or row written
+            Booking existing = recentBookings.get(recentKey(user.getUsername(), idempotencyKey));
+            if (existing == null) {
+                existing = findByIdempotencyKey(user, idempotencyKey);
+            }
+            if (existing != null) {
+                return requireSameFlight(existing, flight, idempotencyKey);
+            }
+        }
+
+        // A scheduled flight found by a search has no row until its first seat is booked
+        flight = flightService.materializeIfScheduled(flight);
+        if (flight == null) {
+            return null;
+        }
+
+        Lock lock = flightService.bookingLock(flight.getFlightNumber());
+        lock.lock();
+        try {
+            // Sold-out flights are turned away in memory before any database work,
+            // unless a concurrent request with the same key got one of the last seats
+            if (!flightService.reserveSeat(flight)) {
+                Booking existing = idempotencyKey != null ? findByIdempotencyKey(user, idempotencyKey) : null;
+                return existing != null ? requireSameFlight(existing, flight, idempotencyKey) : null;
+            }
+            try {
+                return commitReservedSeat(user, flight, idempotencyKey);
+            } catch (SQLException e) {
+                // A concurrent request with the same key won the unique constraint; ours was rolled back
+                if (idempotencyKey != null && BookingDAO.isDuplicateKey(e)) {
+                    Booking existing = findByIdempotencyKey(user, idempotencyKey);
+                    if (existing != null) {
+                        return requireSameFlight(existing, flight, idempotencyKey);
                     }
-                    
-                    return booking;
-                } catch (SQLException e) {
-                    e.printStackTrace();
-                    return null;
                 }
+                throw e;
             }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // A key identifies one booking request; reusing it for another flight is a client error,
+    // not a retry, and must not hand back the other flight's booking
+    private static Booking requireSameFlight(Booking existing, Flight flight, String idempotencyKey) {
+        String bookedFlight = existing.getFlight().getFlightNumber();
+        if (!bookedFlight.equals(flight.getFlightNumber())) {
+            throw new IllegalArgumentException("Idempotency key " + idempotencyKey + " was already used for flight " + bookedFlight);
+        }
+        return existing;
+    }
+
+    private Booking findByIdempotencyKey(User user, String idempotencyKey) throws SQLException {
+        Booking existing = bookingDAO.getBookingByIdempotencyKey(user.getUsername(), idempotencyKey);
+        if (existing != null) {
+            recentBookings.put(recentKey(user.getUsername(), idempotencyKey), existing);
+        }
+        return existing;
+    }
+
+    private static String recentKey(String username, String idempotencyKey) {
+        return username + '\u0000' + idempotencyKey;
+    }
+
+    // Reserves a seat for a checkout that has not been paid for yet; see FlightService.holdSeat
+    public SeatHold holdSeat(User user, Flight flight, Duration ttl) {
+        return flightService.holdSeat(flight, user, ttl);
+    }
+
+    // Turns a hold into a booking. The seat was already taken in memory when the hold was
+    // placed, so only the database write is left. Returns null if the hold has expired.
+    public Booking confirmHold(String holdId, User user) {
+        SeatHold hold = flightService.getHold(holdId);
+        if (hold == null) {
             return null;
+        }
+
+        // Claimed under the lock so the cached flight cannot be replaced before the write
+        Lock lock = flightService.bookingLock(hold.getFlightNumber());
+        lock.lock();
+        try {
+            Flight flight = flightService.claimHold(holdId, user);
+            if (flight == null) {
+                return null;
+            }
+            return commitReservedSeat(user, flight, null);
         } catch (SQLException e) {
             e.printStackTrace();
             return null;
+        } finally {
+            lock.unlock();
         }
     }
 
+    public boolean releaseHold(String holdId, User user) {
+        return flightService.releaseHold(holdId, user);
+    }
+
+    // Writes the booking for a seat already reserved in memory, giving the seat back if that fails.
+    // Caller holds the flight's booking lock.
+    private Booking commitReservedSeat(User user, Flight flight, String idempotencyKey) throws SQLException {
+        Booking booking = new Booking(user, flight);
+        booking.setIdempotencyKey(idempotencyKey);
+        boolean committed = false;
+        try {
+            // User check, seat decrement and insert all run in one transaction
+            committed = bookingDAO.createBookingWithSeat(booking);
+        } finally {
+            if (!committed) {
+                flightService.releaseReservedSeat(flight);
+            }
+        }
+        if (!committed) {
+            return null;
+        }
+        flightService.confirmReservedSeat(flight);
+
+        incrementBookingCount(1);
+        if (idempotencyKey != null) {
+            recentBookings.put(recentKey(user.getUsername(), idempotencyKey), booking);
+        }
+
+        // If user is a customer, add booking to their list
+        if (user instanceof Customer) {
+            ((Customer) user).addBooking(booking);
+        }
+
+        return booking;
+    }
+
     public boolean cancelBooking(String bookingId, User user) {
+        try {
+            return tryCancelBooking(bookingId, user);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // Completes with false if the booking does not exist or is not the user's; database errors
+    // complete the future exceptionally instead of being swallowed
+    public CompletableFuture<Boolean> cancelBookingAsync(String bookingId, User user) {
+        return async.submit(() -> tryCancelBooking(bookingId, user));
+    }
+
+    // Like cancelBooking, but a database error is thrown instead of looking like a missing booking
+    public boolean tryCancelBooking(String bookingId, User user) throws SQLException {
         // First verify the booking belongs to the user
-        Booking bookingToCancel = getBookingById(bookingId);
+        Booking bookingToCancel = bookingDAO.getBookingById(bookingId);
         if (bookingToCancel == null || !bookingToCancel.getUser().getUsername().equals(user.getUsername())) {
             return false;
         }
         
+        // Held across the write and the in-memory update so the cached version matches the row
+        Lock lock = flightService.bookingLock(bookingToCancel.getFlight().getFlightNumber());
+        lock.lock();
         try {
-            bookingDAO.cancelBooking(bookingId);
-            // Return the seat to available
-            flightService.cancelFlightSeat(bookingToCancel.getFlight());
+            // The seat goes to the next waitlisted customer in the same transaction, if there is one
+            BookingDAO.CancelResult result = bookingDAO.cancelBookingAndPassSeatOn(bookingId, bookingToCancel.getFlight().getFlightNumber());
+            if (result == BookingDAO.CancelResult.NOT_FOUND) {
+                return false;
+            }
+            incrementBookingCount(-1);
+            // The key is free again once the row is gone
+            if (bookingToCancel.getIdempotencyKey() != null) {
+                recentBookings.remove(recentKey(user.getUsername(), bookingToCancel.getIdempotencyKey()));
+            }
+            if (result == BookingDAO.CancelResult.SEAT_RELEASED) {
+                // Return the seat to available
+                flightService.recordSeatReleased(bookingToCancel.getFlight());
+            } else {
+                waitlistPromoter.wake();
+            }
             return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Reads the number of bookings so admin views can show it without a query
+    public long warmUp() {
+        // Finish any seat hand-overs that were in flight when the application last stopped
+        waitlistPromoter.start();
+        try {
+            bookingCount.set(bookingDAO.countBookings());
+        } catch (SQLException e) {
+            System.out.println("Error counting bookings: " + e.getMessage());
+        }
+        return bookingCount.get();
+    }
+
+    // Puts the user in line for a sold-out flight; when a booking on it is cancelled the seat is
+    // booked for the first customer in the highest priority tier. Returns null if the flight still
+    // has seats or the user is already waiting for it.
+    public WaitlistEntry joinWaitlist(User user, Flight flight, int priority) {
+        // Whether the flight is full is decided by the database, under the same lock that hands
+        // cancelled seats over; the cached count can be stale and is not checked here
+        if (flightService.getFlightByNumber(flight.getFlightNumber()) == null) {
+            return null;
+        }
+        try {
+            return waitlistDAO.addEntry(user, flight.getFlightNumber(), priority);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public boolean leaveWaitlist(long entryId, User user) {
+        try {
+            return waitlistDAO.cancelEntry(entryId, user.getUsername());
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
     }
 
+    public List<WaitlistEntry> getWaitlistEntries(User user) {
+        try {
+            return waitlistDAO.getEntriesByUser(user.getUsername());
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    // Total number of bookings, or -1 if it has not been loaded yet
+    public long getBookingCount() {
+        return bookingCount.get();
+    }
+
+    private void incrementBookingCount(long delta) {
+        bookingCount.updateAndGet(count -> count < 0 ? count : count + delta);
+    }
+
     public List<Booking> getAllBookings() {
         try {
             return bookingDAO.getAllBookings();
@@ -83,6 +332,35 @@ public class BookingService {
         }
     }
 
+    public CompletableFuture<List<Booking>> getAllBookingsAsync() {
+        return async.submit(() -> bookingDAO.getAllBookings());
+    }
+
+    // One page of all bookings, newest first. Pass null for the first page and then the previous
+    // page's cursor.
+    public Page<Booking> getBookingsPage(String cursor, int pageSize) {
+        String[] key = Page.decodeCursor(cursor, 2);
+        LocalDateTime beforeDate = null;
+        String beforeId = null;
+        if (key != null) {
+            try {
+                beforeDate = LocalDateTime.parse(key[0]);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid page cursor", e);
+            }
+            beforeId = key[1];
+        }
+        int size = Page.clampPageSize(pageSize);
+
+        try {
+            List<Booking> rows = bookingDAO.getBookingsBefore(beforeDate, beforeId, size + 1);
+            return Page.of(rows, size, booking -> Page.encodeCursor(booking.getBookingDate().toString(), booking.getBookingId()));
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return Page.empty();
+        }
+    }
+
     public List<Booking> getBookingsByUsername(String username) {
         try {
             return bookingDAO.getBookingsByUser(username);
@@ -92,6 +370,14 @@ public class BookingService {
         }
     }
     
+    public List<Booking> tryGetBookingsByUsername(String username) throws SQLException {
+        return bookingDAO.getBookingsByUser(username);
+    }
+
+    public CompletableFuture<List<Booking>> getBookingsByUsernameAsync(String username) {
+        return async.submit(() -> tryGetBookingsByUsername(username));
+    }
+
     public List<Booking> getUserBookings(User user) {
         return getBookingsByUsername(user.getUsername());
     }
@@ -104,4 +390,8 @@ public class BookingService {
             return null;
         }
     }
+
+    public CompletableFuture<Booking> getBookingByIdAsync(String bookingId) {
+        return async.submit(() -> bookingDAO.getBookingById(bookingId));
+    }
 }
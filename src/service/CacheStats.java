@@ -0,0 +1,36 @@
+package service;
+
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final int size;
+
+    public CacheStats(long hits, long misses, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.size = size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheStats{hits=%d, misses=%d, hitRate=%.1f%%, size=%d}",
+                hits, misses, getHitRate() * 100, size);
+    }
+}
@@ -2,30 +2,49 @@ package service;
 
 import java.sql.Connection;
 import java.sql.SQLException;
-import java.sql.DriverManager;
 
 public class DatabaseConnection {
     private static final String DB_URL = "";
     private static final String USER = "root";
     private static final String PASS = "";
 
+    // Pool settings, overridable with -Ddb.pool.* system properties
+    private static final int MIN_IDLE = Integer.getInteger("db.pool.minIdle", 2);
+    private static final int MAX_SIZE = Integer.getInteger("db.pool.maxSize", 10);
+    private static final long IDLE_TIMEOUT_MS = Long.getLong("db.pool.idleTimeoutMs", 300_000L);
+    private static final long BORROW_TIMEOUT_MS = Long.getLong("db.pool.borrowTimeoutMs", 5_000L);
+    private static final int VALIDATION_TIMEOUT_SEC = Integer.getInteger("db.pool.validationTimeoutSec", 2);
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("db.pool.statementCacheSize", 64);
+
+    private static final ConnectionPool POOL;
+
     static {
         try {
             Class.forName("com.mysql.cj.jdbc.Driver");
         } catch (ClassNotFoundException e) {
             e.printStackTrace();
         }
+        POOL = new ConnectionPool(DB_URL, USER, PASS, MIN_IDLE, MAX_SIZE,
+                IDLE_TIMEOUT_MS, BORROW_TIMEOUT_MS, VALIDATION_TIMEOUT_SEC, STATEMENT_CACHE_SIZE);
+        POOL.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(POOL::close, "db-pool-shutdown"));
     }
 
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL, USER, PASS);
+        return POOL.getConnection();
     }
-    
+
     public static boolean isConnected() {
-        try (Connection conn = getConnection()) {
+        try {
+            // Borrowing validates the connection, so handing it straight back is enough
+            getConnection().close();
             return true;
         } catch (SQLException e) {
             return false;
         }
     }
-}
\ No newline at end of file
+
+    public static PoolStats getPoolStats() {
+        return POOL.getStats();
+    }
+}
@@ -6,26 +6,34 @@ import java.util.ArrayList;
 import java.sql.SQLException;
 
 public class FileService {
+    // Rows per JDBC batch (and per transaction) for the bulk save methods
+    public static final int DEFAULT_BATCH_SIZE = Math.max(1, Integer.getInteger("fileservice.batchSize", 500));
 
-    public static void saveUsers(List<User> users) {
+    public static boolean saveUsers(List<User> users) {
+        return saveUsers(users, DEFAULT_BATCH_SIZE);
+    }
+
+    public static boolean saveUsers(List<User> users, int batchSize) {
+        return saveUsers(getUserDAO(), users, batchSize);
+    }
+
+    public static boolean saveUsers(UserDAO userDAO, List<User> users, int batchSize) {
         try {
-            UserDAO userDAO = getUserDAO();
-            for (User user : users) {
-                if (userDAO.userExists(user.getUsername())) {
-                    userDAO.updateUser(user);
-                } else {
-                    userDAO.createUser(user);
-                }
-            }
+            userDAO.upsertUsers(users, batchSize);
             System.out.println("Users saved successfully");
+            return true;
         } catch (SQLException e) {
             System.out.println("Error saving users: " + e.getMessage());
+            return false;
         }
     }
 
     public static List<User> loadUsers() {
+        return loadUsers(getUserDAO());
+    }
+
+    public static List<User> loadUsers(UserDAO userDAO) {
         try {
-            UserDAO userDAO = getUserDAO();
             List<User> users = userDAO.getAllUsers();
             
             // Create default admin if no users exist
@@ -43,15 +51,12 @@ public class FileService {
     }
 
     public static void saveFlights(List<Flight> flights) {
+        saveFlights(flights, DEFAULT_BATCH_SIZE);
+    }
+
+    public static void saveFlights(List<Flight> flights, int batchSize) {
         try {
-            FlightDAO flightDAO = new FlightDAO();
-            for (Flight flight : flights) {
-                if (flightDAO.getFlightByNumber(flight.getFlightNumber()) != null) {
-                    flightDAO.updateFlight(flight);
-                } else {
-                    flightDAO.addFlight(flight);
-                }
-            }
+            ApplicationContext.getInstance().getFlightDAO().upsertFlights(flights, batchSize);
             System.out.println("Flights saved successfully");
         } catch (SQLException e) {
             System.out.println("Error saving flights: " + e.getMessage());
@@ -60,8 +65,7 @@ public class FileService {
 
     public static List<Flight> loadFlights() {
         try {
-            FlightDAO flightDAO = new FlightDAO();
-            return flightDAO.getAllFlights();
+            return ApplicationContext.getInstance().getFlightDAO().getAllFlights();
         } catch (SQLException e) {
             System.out.println("Error loading flights: " + e.getMessage());
             return new ArrayList<>();
@@ -69,11 +73,12 @@ public class FileService {
     }
 
     public static void saveBookings(List<Booking> bookings) {
+        saveBookings(bookings, DEFAULT_BATCH_SIZE);
+    }
+
+    public static void saveBookings(List<Booking> bookings, int batchSize) {
         try {
-            BookingDAO bookingDAO = new BookingDAO(new UserDAO(), new FlightService());
-            for (Booking booking : bookings) {
-                bookingDAO.createBooking(booking);
-            }
+            ApplicationContext.getInstance().getBookingDAO().upsertBookings(bookings, batchSize);
             System.out.println("Bookings saved successfully");
         } catch (SQLException e) {
             System.out.println("Error saving bookings: " + e.getMessage());
@@ -82,8 +87,7 @@ public class FileService {
 
     public static List<Booking> loadBookings() {
         try {
-            BookingDAO bookingDAO = new BookingDAO(new UserDAO(), new FlightService());
-            return bookingDAO.getAllBookings();
+            return ApplicationContext.getInstance().getBookingDAO().getAllBookings();
         } catch (SQLException e) {
             System.out.println("Error loading bookings: " + e.getMessage());
             return new ArrayList<>();
@@ -91,6 +95,6 @@ public class FileService {
     }
     
     public static UserDAO getUserDAO() {
-        return new UserDAO();
+        return ApplicationContext.getInstance().getUserDAO();
     }
 }
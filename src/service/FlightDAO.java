@@ -2,17 +2,34 @@ package service;
 
 import java.sql.*;
 import model.Flight;
+import java.util.Set;
 import java.util.List;
+import java.util.HashSet;
 import java.util.ArrayList;
 import java.time.LocalDateTime;
 
 public class FlightDAO {
     private static final String INSERT_FLIGHT = "INSERT INTO flights (flight_number, airline, origin, destination, departure_time, arrival_time, total_seats, available_seats, price) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-    private static final String UPDATE_FLIGHT = "UPDATE flights SET airline=?, origin=?, destination=?, departure_time=?, arrival_time=?, total_seats=?, available_seats=?, price=? WHERE flight_number=?";
+    private static final String UPDATE_FLIGHT = "UPDATE flights SET airline=?, origin=?, destination=?, departure_time=?, arrival_time=?, total_seats=?, available_seats=?, price=?, version=version+1 WHERE flight_number=? AND version=?";
     private static final String DELETE_FLIGHT = "DELETE FROM flights WHERE flight_number=?";
     private static final String GET_FLIGHT_BY_NUMBER = "SELECT * FROM flights WHERE flight_number=?";
     private static final String GET_ALL_FLIGHTS = "SELECT * FROM flights";
-    private static final String UPDATE_SEATS = "UPDATE flights SET available_seats=? WHERE flight_number=?";
+    private static final String GET_FLIGHTS_FIRST = "SELECT * FROM flights ORDER BY flight_number LIMIT ?";
+    private static final String GET_FLIGHTS_AFTER = "SELECT * FROM flights WHERE flight_number > ? ORDER BY flight_number LIMIT ?";
+    private static final String UPDATE_SEATS = "UPDATE flights SET available_seats=?, version=version+1 WHERE flight_number=? AND version=?";
+    private static final String UPSERT_FLIGHT = INSERT_FLIGHT
+            + " ON DUPLICATE KEY UPDATE airline=VALUES(airline), origin=VALUES(origin), destination=VALUES(destination),"
+            + " departure_time=VALUES(departure_time), arrival_time=VALUES(arrival_time),"
+            + " available_seats=GREATEST(0, LEAST(VALUES(total_seats), available_seats + VALUES(total_seats) - total_seats)),"
+            + " total_seats=VALUES(total_seats), price=VALUES(price), version=version+1";
+    // IGNORE turns a number taken since the existence check into a skipped row instead of an error;
+    // the importer has already checked every other column against the schema
+    private static final String INSERT_FLIGHTS_PREFIX = "INSERT IGNORE INTO flights (flight_number, airline, origin, destination, departure_time, arrival_time, total_seats, available_seats, price) VALUES ";
+    private static final String INSERT_FLIGHTS_ROW = "(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String GET_EXISTING_PREFIX = "SELECT flight_number FROM flights WHERE flight_number IN (";
+    private static final String INSERT_FLIGHT_IF_ABSENT = INSERT_FLIGHT + " ON DUPLICATE KEY UPDATE flight_number=flight_number";
+    private static final String RESERVE_SEAT = "UPDATE flights SET available_seats = available_seats - 1, version = version + 1 WHERE flight_number=? AND available_seats > 0";
+    private static final String RELEASE_SEAT = "UPDATE flights SET available_seats = available_seats + 1, version = version + 1 WHERE flight_number=? AND available_seats < total_seats";
 
     public void addFlight(Flight flight) throws SQLException {
         Connection conn = null;
@@ -20,18 +37,19 @@ public class FlightDAO {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
             
-            PreparedStatement stmt = conn.prepareStatement(INSERT_FLIGHT);
-            stmt.setString(1, flight.getFlightNumber());
-            stmt.setString(2, flight.getAirline());
-            stmt.setString(3, flight.getOrigin());
-            stmt.setString(4, flight.getDestination());
-            stmt.setTimestamp(5, Timestamp.valueOf(flight.getDepartureTime()));
-            stmt.setTimestamp(6, Timestamp.valueOf(flight.getArrivalTime()));
-            stmt.setInt(7, flight.getTotalSeats());
-            stmt.setInt(8, flight.getAvailableSeats());
-            stmt.setDouble(9, flight.getPrice());
-            
-            stmt.executeUpdate();
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_FLIGHT)) {
+                stmt.setString(1, flight.getFlightNumber());
+                stmt.setString(2, flight.getAirline());
+                stmt.setString(3, flight.getOrigin());
+                stmt.setString(4, flight.getDestination());
+                stmt.setTimestamp(5, Timestamp.valueOf(flight.getDepartureTime()));
+                stmt.setTimestamp(6, Timestamp.valueOf(flight.getArrivalTime()));
+                stmt.setInt(7, flight.getTotalSeats());
+                stmt.setInt(8, flight.getAvailableSeats());
+                stmt.setDouble(9, flight.getPrice());
+
+                stmt.executeUpdate();
+            }
             conn.commit();
         } catch (SQLException e) {
             if (conn != null) {
@@ -46,7 +64,9 @@ public class FlightDAO {
         }
     }
 
-    public void updateFlight(Flight flight) throws SQLException {
+    // Applies the update only if the row still has the flight's version, bumping the version
+    // on success. Returns false if someone else changed or deleted the row in the meantime.
+    public boolean updateFlight(Flight flight) throws SQLException {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(UPDATE_FLIGHT)) {
             
@@ -59,8 +79,13 @@ public class FlightDAO {
             stmt.setInt(7, flight.getAvailableSeats());
             stmt.setDouble(8, flight.getPrice());
             stmt.setString(9, flight.getFlightNumber());
+            stmt.setLong(10, flight.getVersion());
             
-            stmt.executeUpdate();
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
+            flight.setVersion(flight.getVersion() + 1);
+            return true;
         }
     }
 
@@ -101,18 +126,239 @@ public class FlightDAO {
         return flights;
     }
 
-    public void updateSeats(String flightNumber, int availableSeats) throws SQLException {
+    // Up to limit flights ordered by flight number, starting after the given one (null for the start)
+    public List<Flight> getFlightsAfter(String afterFlightNumber, int limit) throws SQLException {
+        List<Flight> flights = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(afterFlightNumber == null ? GET_FLIGHTS_FIRST : GET_FLIGHTS_AFTER)) {
+
+            int i = 1;
+            if (afterFlightNumber != null) {
+                stmt.setString(i++, afterFlightNumber);
+            }
+            stmt.setInt(i, limit);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                flights.add(extractFlightFromResultSet(rs));
+            }
+        }
+        return flights;
+    }
+
+    // Same version check as updateFlight
+    public boolean updateSeats(String flightNumber, int availableSeats, long expectedVersion) throws SQLException {
         try (Connection conn = DatabaseConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(UPDATE_SEATS)) {
             
             stmt.setInt(1, availableSeats);
             stmt.setString(2, flightNumber);
-            stmt.executeUpdate();
+            stmt.setLong(3, expectedVersion);
+            return stmt.executeUpdate() == 1;
+        }
+    }
+
+    // Inserts new flights and updates existing ones, committing once per batch. An existing row keeps
+    // its live seat count, only shifted by the change in capacity, so seats booked since the
+    // flights were read are not handed out again.
+    public void upsertFlights(List<Flight> flights, int batchSize) throws SQLException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(UPSERT_FLIGHT)) {
+                int pending = 0;
+                for (Flight flight : flights) {
+                    stmt.setString(1, flight.getFlightNumber());
+                    stmt.setString(2, flight.getAirline());
+                    stmt.setString(3, flight.getOrigin());
+                    stmt.setString(4, flight.getDestination());
+                    stmt.setTimestamp(5, Timestamp.valueOf(flight.getDepartureTime()));
+                    stmt.setTimestamp(6, Timestamp.valueOf(flight.getArrivalTime()));
+                    stmt.setInt(7, flight.getTotalSeats());
+                    stmt.setInt(8, flight.getAvailableSeats());
+                    stmt.setDouble(9, flight.getPrice());
+                    stmt.addBatch();
+
+                    if (++pending == batchSize) {
+                        stmt.executeBatch();
+                        conn.commit();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    stmt.executeBatch();
+                    conn.commit();
+                }
+            }
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+    }
+
+    // Inserts the flight unless one with its number already exists, then returns the row as stored,
+    // so a flight created at the same time by another instance keeps the seats booked on it
+    public Flight insertFlightIfAbsent(Flight flight) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_FLIGHT_IF_ABSENT)) {
+                stmt.setString(1, flight.getFlightNumber());
+                stmt.setString(2, flight.getAirline());
+                stmt.setString(3, flight.getOrigin());
+                stmt.setString(4, flight.getDestination());
+                stmt.setTimestamp(5, Timestamp.valueOf(flight.getDepartureTime()));
+                stmt.setTimestamp(6, Timestamp.valueOf(flight.getArrivalTime()));
+                stmt.setInt(7, flight.getTotalSeats());
+                stmt.setInt(8, flight.getAvailableSeats());
+                stmt.setDouble(9, flight.getPrice());
+                stmt.executeUpdate();
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(GET_FLIGHT_BY_NUMBER)) {
+                stmt.setString(1, flight.getFlightNumber());
+                try (ResultSet rs = stmt.executeQuery()) {
+                    return rs.next() ? extractFlightFromResultSet(rs) : null;
+                }
+            }
+        }
+    }
+
+    // Inserts the flights that do not exist yet with a single multi-row INSERT, in one transaction.
+    // Returns the flight numbers that were skipped because a flight with that number already exists,
+    // including ones another writer added after the existence check.
+    public Set<String> insertNewFlights(List<Flight> flights) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        if (flights.isEmpty()) {
+            return existing;
+        }
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            StringBuilder query = new StringBuilder(GET_EXISTING_PREFIX);
+            for (int i = 0; i < flights.size(); i++) {
+                query.append(i == 0 ? "?" : ", ?");
+            }
+            query.append(')');
+            try (PreparedStatement stmt = conn.prepareStatement(query.toString())) {
+                for (int i = 0; i < flights.size(); i++) {
+                    stmt.setString(i + 1, flights.get(i).getFlightNumber());
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        existing.add(rs.getString("flight_number"));
+                    }
+                }
+            }
+
+            List<Flight> fresh = new ArrayList<>(flights.size());
+            for (Flight flight : flights) {
+                if (!existing.contains(flight.getFlightNumber())) {
+                    fresh.add(flight);
+                }
+            }
+            if (!fresh.isEmpty()) {
+                StringBuilder insert = new StringBuilder(INSERT_FLIGHTS_PREFIX.length() + fresh.size() * (INSERT_FLIGHTS_ROW.length() + 2));
+                insert.append(INSERT_FLIGHTS_PREFIX);
+                for (int i = 0; i < fresh.size(); i++) {
+                    if (i > 0) {
+                        insert.append(", ");
+                    }
+                    insert.append(INSERT_FLIGHTS_ROW);
+                }
+                Savepoint beforeInsert = conn.setSavepoint();
+                int inserted;
+                try (PreparedStatement stmt = conn.prepareStatement(insert.toString())) {
+                    int index = 1;
+                    for (Flight flight : fresh) {
+                        index = setFlightRow(stmt, index, flight);
+                    }
+                    inserted = stmt.executeUpdate();
+                }
+                if (inserted < fresh.size()) {
+                    // Rare: some numbers were taken after the check. The multi-row count does not say
+                    // which, so the rows are inserted again one at a time to find out. Each is its own
+                    // executeUpdate: a batch may be rewritten by the driver (rewriteBatchedStatements)
+                    // and then reports SUCCESS_NO_INFO instead of a per-row count.
+                    conn.rollback(beforeInsert);
+                    try (PreparedStatement stmt = conn.prepareStatement(INSERT_FLIGHTS_PREFIX + INSERT_FLIGHTS_ROW)) {
+                        for (Flight flight : fresh) {
+                            setFlightRow(stmt, 1, flight);
+                            if (stmt.executeUpdate() == 0) {
+                                existing.add(flight.getFlightNumber());
+                            }
+                        }
+                    }
+                }
+            }
+            conn.commit();
+            return existing;
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+    }
+
+    public boolean reserveSeat(String flightNumber) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return reserveSeat(conn, flightNumber);
+        }
+    }
+
+    public boolean releaseSeat(String flightNumber) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return releaseSeat(conn, flightNumber);
+        }
+    }
+
+    // The seat check happens inside the UPDATE, so concurrent bookers cannot oversell
+    static boolean reserveSeat(Connection conn, String flightNumber) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(RESERVE_SEAT)) {
+            stmt.setString(1, flightNumber);
+            return stmt.executeUpdate() == 1;
+        }
+    }
+
+    // Binds one row of INSERT_FLIGHTS_ROW starting at index and returns the next free index
+    private static int setFlightRow(PreparedStatement stmt, int index, Flight flight) throws SQLException {
+        stmt.setString(index++, flight.getFlightNumber());
+        stmt.setString(index++, flight.getAirline());
+        stmt.setString(index++, flight.getOrigin());
+        stmt.setString(index++, flight.getDestination());
+        stmt.setTimestamp(index++, Timestamp.valueOf(flight.getDepartureTime()));
+        stmt.setTimestamp(index++, Timestamp.valueOf(flight.getArrivalTime()));
+        stmt.setInt(index++, flight.getTotalSeats());
+        stmt.setInt(index++, flight.getAvailableSeats());
+        stmt.setDouble(index++, flight.getPrice());
+        return index;
+    }
+
+    static boolean releaseSeat(Connection conn, String flightNumber) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(RELEASE_SEAT)) {
+            stmt.setString(1, flightNumber);
+            return stmt.executeUpdate() == 1;
         }
     }
 
-    private Flight extractFlightFromResultSet(ResultSet rs) throws SQLException {
-        return new Flight(
+    static Flight extractFlightFromResultSet(ResultSet rs) throws SQLException {
+        Flight flight = new Flight(
             rs.getString("flight_number"),
             rs.getString("airline"),
             rs.getString("origin"),
@@ -122,5 +368,8 @@ public class FlightDAO {
             rs.getInt("total_seats"),
             rs.getDouble("price")
         );
+        flight.setAvailableSeats(rs.getInt("available_seats"));
+        flight.setVersion(rs.getLong("version"));
+        return flight;
     }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package service;
+
+import java.util.List;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * Outcome of a bulk flight import: how many rows were read and imported, and why each
+ * rejected row was turned away. Only the first few thousand errors are listed; the rest
+ * are still counted.
+ */
+public class FlightImportReport {
+    private static final int MAX_LISTED_ERRORS = Integer.getInteger("flight.import.maxErrors", 10_000);
+
+    private long rowsRead;
+    private long imported;
+    private long rejected;
+    private final List<RowError> errors = new ArrayList<>();
+
+    void addRowsRead(long count) {
+        rowsRead += count;
+    }
+
+    void addImported(long count) {
+        imported += count;
+    }
+
+    void reject(long lineNumber, String message) {
+        rejected++;
+        if (errors.size() < MAX_LISTED_ERRORS) {
+            errors.add(new RowError(lineNumber, message));
+        }
+    }
+
+    // Database rejections are found after validation errors later in the file, so put them back in line order
+    void finish() {
+        errors.sort(Comparator.comparingLong(RowError::getLineNumber));
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    // Listed errors in line order; may be shorter than getRejected() for very bad files
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FlightImportReport{rowsRead=%d, imported=%d, rejected=%d}", rowsRead, imported, rejected);
+    }
+
+    public static class RowError {
+        private final long lineNumber;
+        private final String message;
+
+        RowError(long lineNumber, String message) {
+            this.lineNumber = lineNumber;
+            this.message = message;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + lineNumber + ": " + message;
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package service;
+
+import model.Flight;
+import java.util.Map;
+import java.util.Set;
+import java.util.List;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.io.BufferedReader;
+import java.time.LocalDateTime;
+import java.time.DateTimeException;
+import java.util.stream.IntStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bulk loads a flight schedule from CSV with the columns in CSV_HEADER. The file is read a
+ * chunk of lines at a time, each chunk is parsed and validated in parallel, and the valid rows
+ * are written with multi-row INSERTs, one transaction per batch. Rows that fail validation,
+ * repeat a flight number from earlier in the file or clash with an existing flight are left
+ * out and listed in the report; everything else is imported.
+ */
+public class FlightImporter {
+    public static final String CSV_HEADER = "flight_number,airline,origin,destination,departure_time,arrival_time,total_seats,price";
+
+    public interface ProgressListener {
+        void onProgress(long rowsRead, long imported, long rejected);
+    }
+
+    private static final int COLUMNS = 8;
+    // MySQL allows at most 65535 placeholders per statement and each row uses nine
+    private static final int BATCH_SIZE = Math.max(1, Math.min(Integer.getInteger("flight.import.batchSize", 500), 7000));
+    private static final int CHUNK_SIZE = Math.max(BATCH_SIZE, Integer.getInteger("flight.import.chunkSize", 10_000));
+    private static final int MAX_FLIGHT_NUMBER_LENGTH = 20;
+    private static final int MAX_NAME_LENGTH = 50;
+    private static final double MAX_PRICE = 99_999_999.99;
+
+    private final FlightDAO flightDAO;
+    private final FlightService flightService;
+
+    public FlightImporter(FlightDAO flightDAO, FlightService flightService) {
+        this.flightDAO = flightDAO;
+        this.flightService = flightService;
+    }
+
+    public FlightImportReport importFlights(Path source, ProgressListener listener) throws IOException, SQLException {
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            return importFlights(reader, listener);
+        }
+    }
+
+    // Batches committed before an IOException or SQLException stay in the database
+    public FlightImportReport importFlights(Reader source, ProgressListener listener) throws IOException, SQLException {
+        BufferedReader reader = source instanceof BufferedReader ? (BufferedReader) source : new BufferedReader(source);
+        FlightImportReport report = new FlightImportReport();
+        // The chunk buffers are reused for the whole file
+        String[] lines = new String[CHUNK_SIZE];
+        long[] lineNumbers = new long[CHUNK_SIZE];
+        Flight[] parsed = new Flight[CHUNK_SIZE];
+        String[] problems = new String[CHUNK_SIZE];
+        // First line of each flight number seen so far, to catch repeats within the file
+        Map<String, Long> firstSeen = new HashMap<>();
+        Batch batch = new Batch();
+
+        long lineNumber = 0;
+        boolean firstRow = true;
+        boolean endOfFile = false;
+        while (!endOfFile) {
+            int count = 0;
+            while (count < CHUNK_SIZE) {
+                String line = reader.readLine();
+                if (line == null) {
+                    endOfFile = true;
+                    break;
+                }
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (firstRow) {
+                    firstRow = false;
+                    // The header row is optional
+                    if (line.regionMatches(true, 0, "flight_number", 0, 13)) {
+                        continue;
+                    }
+                }
+                lines[count] = line;
+                lineNumbers[count] = lineNumber;
+                count++;
+            }
+            if (count == 0) {
+                break;
+            }
+
+            IntStream.range(0, count).parallel().forEach(i -> {
+                int[] bounds = new int[COLUMNS * 2];
+                String problem = validate(lines[i], bounds);
+                problems[i] = problem;
+                parsed[i] = problem == null ? toFlight(lines[i], bounds) : null;
+            });
+            report.addRowsRead(count);
+
+            for (int i = 0; i < count; i++) {
+                if (problems[i] != null) {
+                    report.reject(lineNumbers[i], problems[i]);
+                    continue;
+                }
+                Flight flight = parsed[i];
+                // Such a row would be taken for the schedule's flight on that date
+                if (flightService.isScheduleInstanceNumber(flight.getFlightNumber())) {
+                    report.reject(lineNumbers[i], "Flight " + flight.getFlightNumber() + " is reserved for a recurring schedule");
+                    continue;
+                }
+                Long earlier = firstSeen.putIfAbsent(flight.getFlightNumber(), lineNumbers[i]);
+                if (earlier != null) {
+                    report.reject(lineNumbers[i], "Flight " + flight.getFlightNumber() + " already appears on line " + earlier);
+                    continue;
+                }
+                batch.add(flight, lineNumbers[i]);
+                if (batch.size() == BATCH_SIZE) {
+                    flush(batch, report, listener);
+                }
+            }
+            flush(batch, report, listener);
+            // Let the chunk's strings be collected before the next one is read
+            Arrays.fill(lines, 0, count, null);
+            Arrays.fill(parsed, 0, count, null);
+        }
+
+        report.finish();
+        return report;
+    }
+
+    private void flush(Batch batch, FlightImportReport report, ProgressListener listener) throws SQLException {
+        if (batch.size() > 0) {
+            // Flights added by someone else while the batch is written come back as existing too
+            Set<String> existing = flightDAO.insertNewFlights(batch.flights);
+
+            List<Flight> inserted = new ArrayList<>(batch.size() - existing.size());
+            for (int i = 0; i < batch.size(); i++) {
+                Flight flight = batch.flights.get(i);
+                if (existing.contains(flight.getFlightNumber())) {
+                    report.reject(batch.lineNumbers[i], "Flight " + flight.getFlightNumber() + " already exists");
+                } else {
+                    inserted.add(flight);
+                }
+            }
+            flightService.cacheFlights(inserted);
+            report.addImported(inserted.size());
+            batch.clear();
+        }
+        if (listener != null) {
+            listener.onProgress(report.getRowsRead(), report.getImported(), report.getRejected());
+        }
+    }
+
+    // Returns why the row cannot be imported, or null if it is valid. Field positions are left in bounds.
+    static String validate(String line, int[] bounds) {
+        int fields = splitFields(line, bounds);
+        if (fields < 0) {
+            return "Unterminated quoted field";
+        }
+        if (fields != COLUMNS) {
+            return "Expected " + COLUMNS + " fields but found " + fields;
+        }
+        String problem = checkText(line, bounds, 0, "flight_number", MAX_FLIGHT_NUMBER_LENGTH);
+        if (problem == null) {
+            problem = checkText(line, bounds, 1, "airline", MAX_NAME_LENGTH);
+        }
+        if (problem == null) {
+            problem = checkText(line, bounds, 2, "origin", MAX_NAME_LENGTH);
+        }
+        if (problem == null) {
+            problem = checkText(line, bounds, 3, "destination", MAX_NAME_LENGTH);
+        }
+        if (problem != null) {
+            return problem;
+        }
+
+        LocalDateTime departure = parseDateTime(line, bounds[8], bounds[9]);
+        if (departure == null) {
+            return "departure_time must be yyyy-MM-dd HH:mm";
+        }
+        LocalDateTime arrival = parseDateTime(line, bounds[10], bounds[11]);
+        if (arrival == null) {
+            return "arrival_time must be yyyy-MM-dd HH:mm";
+        }
+        if (!departure.isBefore(arrival)) {
+            return "departure_time must be before arrival_time";
+        }
+
+        int seats;
+        try {
+            seats = Integer.parseInt(line, bounds[12], bounds[13], 10);
+        } catch (NumberFormatException e) {
+            seats = 0;
+        }
+        if (seats <= 0) {
+            return "total_seats must be a positive whole number";
+        }
+
+        double price;
+        try {
+            price = Double.parseDouble(line.substring(bounds[14], bounds[15]));
+        } catch (NumberFormatException e) {
+            price = 0;
+        }
+        if (!(price > 0 && price <= MAX_PRICE)) {
+            return "price must be a positive number";
+        }
+        return null;
+    }
+
+    private static String checkText(String line, int[] bounds, int field, String name, int maxLength) {
+        int length = bounds[field * 2 + 1] - bounds[field * 2];
+        if (length == 0) {
+            return name + " cannot be empty";
+        }
+        if (length > maxLength) {
+            return name + " is longer than " + maxLength + " characters";
+        }
+        return null;
+    }
+
+    // Only called on rows that passed validate(), with the bounds it filled in
+    private static Flight toFlight(String line, int[] bounds) {
+        return new Flight(
+            text(line, bounds[0], bounds[1]),
+            text(line, bounds[2], bounds[3]),
+            text(line, bounds[4], bounds[5]),
+            text(line, bounds[6], bounds[7]),
+            parseDateTime(line, bounds[8], bounds[9]),
+            parseDateTime(line, bounds[10], bounds[11]),
+            Integer.parseInt(line, bounds[12], bounds[13], 10),
+            Double.parseDouble(line.substring(bounds[14], bounds[15]))
+        );
+    }
+
+    // Records where each field starts and ends without copying anything, trimming whitespace and
+    // surrounding quotes. Returns the number of fields, or -1 if a quoted field is not closed.
+    static int splitFields(String line, int[] bounds) {
+        int count = 0;
+        int i = 0;
+        int length = line.length();
+        while (true) {
+            while (i < length && line.charAt(i) == ' ') {
+                i++;
+            }
+            int start = i;
+            int end;
+            if (i < length && line.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        return -1;
+                    }
+                    if (line.charAt(i) == '"') {
+                        // A doubled quote is an escaped quote inside the field
+                        if (i + 1 < length && line.charAt(i + 1) == '"') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                start++;
+                end = i++;
+                while (i < length && line.charAt(i) != ',') {
+                    i++;
+                }
+            } else {
+                int comma = line.indexOf(',', i);
+                i = comma < 0 ? length : comma;
+                end = i;
+                while (end > start && line.charAt(end - 1) == ' ') {
+                    end--;
+                }
+            }
+            if (count < COLUMNS) {
+                bounds[count * 2] = start;
+                bounds[count * 2 + 1] = end;
+            }
+            count++;
+            if (i >= length) {
+                return count;
+            }
+            i++;
+        }
+    }
+
+    private static String text(String line, int start, int end) {
+        String value = line.substring(start, end);
+        return value.indexOf('"') < 0 ? value : value.replace("\"\"", "\"");
+    }
+
+    // Reads yyyy-MM-dd HH:mm[:ss], with a space or 'T' in the middle, straight from the line
+    static LocalDateTime parseDateTime(String line, int start, int end) {
+        int length = end - start;
+        if (length != 16 && length != 19) {
+            return null;
+        }
+        char separator = line.charAt(start + 10);
+        if (line.charAt(start + 4) != '-' || line.charAt(start + 7) != '-' || (separator != ' ' && separator != 'T')
+                || line.charAt(start + 13) != ':' || (length == 19 && line.charAt(start + 16) != ':')) {
+            return null;
+        }
+        int year = digits(line, start, 4);
+        int month = digits(line, start + 5, 2);
+        int day = digits(line, start + 8, 2);
+        int hour = digits(line, start + 11, 2);
+        int minute = digits(line, start + 14, 2);
+        int second = length == 19 ? digits(line, start + 17, 2) : 0;
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int digits(String line, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // Valid rows waiting to be written, with the line each came from for error reporting
+    private static class Batch {
+        private final List<Flight> flights = new ArrayList<>(BATCH_SIZE);
+        private final long[] lineNumbers = new long[BATCH_SIZE];
+
+        void add(Flight flight, long lineNumber) {
+            lineNumbers[flights.size()] = lineNumber;
+            flights.add(flight);
+        }
+
+        int size() {
+            return flights.size();
+        }
+
+        void clear() {
+            flights.clear();
+        }
+    }
+}
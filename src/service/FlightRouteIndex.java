@@ -0,0 +1,109 @@
+package service;
+
+import model.Flight;
+import java.util.Map;
+import java.util.List;
+import java.util.Locale;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.time.LocalDate;
+import java.util.NavigableMap;
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory search index: normalized (origin, destination) route to the flights on that
+ * route ordered by departure time. Reads are lock-free; writes are serialized on the index.
+ */
+class FlightRouteIndex {
+    private final Map<String, NavigableMap<LocalDateTime, Map<String, Flight>>> routes = new ConcurrentHashMap<>();
+    // Where each flight was filed, so updates can find the old slot even if the Flight object was mutated
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+    synchronized void add(Flight flight) {
+        remove(flight.getFlightNumber());
+
+        Slot slot = new Slot(routeKey(flight.getOrigin(), flight.getDestination()), flight.getDepartureTime(), flight);
+        routes.computeIfAbsent(slot.routeKey, k -> new ConcurrentSkipListMap<>())
+              .computeIfAbsent(slot.departureTime, k -> new ConcurrentHashMap<>())
+              .put(flight.getFlightNumber(), flight);
+        slots.put(flight.getFlightNumber(), slot);
+    }
+
+    synchronized void addAll(Collection<Flight> flights) {
+        for (Flight flight : flights) {
+            add(flight);
+        }
+    }
+
+    synchronized Flight remove(String flightNumber) {
+        Slot slot = slots.remove(flightNumber);
+        if (slot == null) {
+            return null;
+        }
+
+        NavigableMap<LocalDateTime, Map<String, Flight>> byTime = routes.get(slot.routeKey);
+        if (byTime != null) {
+            Map<String, Flight> atTime = byTime.get(slot.departureTime);
+            if (atTime != null) {
+                atTime.remove(flightNumber);
+                if (atTime.isEmpty()) {
+                    byTime.remove(slot.departureTime);
+                }
+            }
+            if (byTime.isEmpty()) {
+                routes.remove(slot.routeKey);
+            }
+        }
+        return slot.flight;
+    }
+
+    synchronized void clear() {
+        routes.clear();
+        slots.clear();
+    }
+
+    // Flights on the route departing on the given day that still have seats, earliest first
+    List<Flight> search(String origin, String destination, LocalDate date) {
+        List<Flight> result = new ArrayList<>();
+        NavigableMap<LocalDateTime, Map<String, Flight>> byTime = routes.get(routeKey(origin, destination));
+        if (byTime == null) {
+            return result;
+        }
+
+        // Seat counts are read from the live Flight objects, so seat changes need no re-indexing
+        for (Map<String, Flight> atTime : byTime.subMap(date.atStartOfDay(), true, date.plusDays(1).atStartOfDay(), false).values()) {
+            for (Flight flight : atTime.values()) {
+                if (flight.getAvailableSeats() > 0) {
+                    result.add(flight);
+                }
+            }
+        }
+        return result;
+    }
+
+    int size() {
+        return slots.size();
+    }
+
+    static String routeKey(String origin, String destination) {
+        return normalize(origin) + '\u0000' + normalize(destination);
+    }
+
+    private static String normalize(String place) {
+        return place == null ? "" : place.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static class Slot {
+        private final String routeKey;
+        private final LocalDateTime departureTime;
+        private final Flight flight;
+
+        Slot(String routeKey, LocalDateTime departureTime, Flight flight) {
+            this.routeKey = routeKey;
+            this.departureTime = departureTime;
+            this.flight = flight;
+        }
+    }
+}
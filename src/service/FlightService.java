@@ -1,33 +1,100 @@
 package service;
 
+import model.User;
 import model.Flight;
+import model.SeatHold;
+import model.FlightSchedule;
+import java.util.Map;
 import java.util.List;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class FlightService {
+    private static final int LOCK_STRIPES = 64;
+    // Hold expiry resolution and wheel size, overridable with -Dflight.hold.* system properties
+    private static final long HOLD_TICK_MS = Long.getLong("flight.hold.tickMs", 100L);
+    private static final int HOLD_WHEEL_SIZE = Integer.getInteger("flight.hold.wheelSize", 512);
+    // How far ahead a recurring schedule's flights can be booked
+    private static final int SCHEDULE_HORIZON_DAYS = Integer.getInteger("flight.schedule.horizonDays", 365);
+    // Optimistic update retries on a version conflict, with randomized exponential backoff
+    private static final int UPDATE_ATTEMPTS = 3;
+    private static final long UPDATE_BACKOFF_MS = 10;
+
     private FlightDAO flightDAO;
-    private List<Flight> flights;
+    private final ScheduleDAO scheduleDAO;
+    // Single source for all flight reads; the route index holds the same Flight instances
+    private final ConcurrentNavigableMap<String, Flight> flightsByNumber = new ConcurrentSkipListMap<>();
+    private final FlightRouteIndex routeIndex = new FlightRouteIndex();
+    // True once the whole flights table has been read, so full listings can be served from memory
+    private volatile boolean catalogLoaded;
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    // Bookings take a stripe's read lock, so they never wait on each other; swapping or dropping
+    // a cached Flight takes the write lock so no seat is reserved on a copy being discarded
+    private final ReadWriteLock[] seatLocks = new ReadWriteLock[LOCK_STRIPES];
+    // Outstanding seat holds by id. Each one owns a seat taken from the in-memory count until it
+    // is confirmed, released, or expired by the timing wheel, whichever removes it from here first.
+    private final Map<String, ActiveHold> holds = new ConcurrentHashMap<>();
+    // Number of held seats per flight. The database does not count holds, so they are taken off
+    // every copy of a flight that is newly cached, e.g. after an update or a reload.
+    private final Map<String, AtomicInteger> heldSeats = new ConcurrentHashMap<>();
+    // Recurring schedules by flight number and by route. Their flights only become rows in the
+    // flights table, and entries in the cache, once a search or booking asks for that date.
+    private final Map<String, FlightSchedule> schedulesByNumber = new ConcurrentHashMap<>();
+    private final Map<String, List<FlightSchedule>> schedulesByRoute = new ConcurrentHashMap<>();
+    private volatile boolean schedulesLoaded;
+    private final AsyncExecutor async = AsyncExecutor.getDefault();
+    private final TimingWheel holdTimer = new TimingWheel("seat-hold-timer", HOLD_TICK_MS, TimeUnit.MILLISECONDS, HOLD_WHEEL_SIZE);
+
+    // Does no database work; the catalog is loaded by warmUp() or by the first read that needs it
+    public FlightService(FlightDAO flightDAO) {
+        this(flightDAO, new ScheduleDAO());
+    }
 
-    public FlightService() {
-        this.flightDAO = new FlightDAO();
+    public FlightService(FlightDAO flightDAO, ScheduleDAO scheduleDAO) {
+        this.flightDAO = flightDAO;
+        this.scheduleDAO = scheduleDAO;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            seatLocks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    // Loads the whole flights table into the cache and route index, and the recurring schedules.
+    // Returns the number of cached flights.
+    public int warmUp() {
+        loadCatalog();
         try {
-            this.flights = flightDAO.getAllFlights();
+            loadSchedulesOrThrow();
         } catch (SQLException e) {
-            this.flights = new ArrayList<>();
-            e.printStackTrace();
+            System.out.println("Error loading flight schedules: " + e.getMessage());
         }
+        return flightsByNumber.size();
     }
 
     public boolean addFlight(Flight flight) {
         try {
             // Check if flight already exists
-            if (flightDAO.getFlightByNumber(flight.getFlightNumber()) != null) {
+            if (getFlightByNumber(flight.getFlightNumber()) != null) {
                 return false;
             }
             flightDAO.addFlight(flight);
+            cacheFlight(flight);
             return true;
         } catch (SQLException e) {
             e.printStackTrace();
@@ -35,19 +102,116 @@ public class FlightService {
         }
     }
 
+    // Writes the admin's changes with an optimistic version check. If bookings or another admin
+    // changed the row since it was read, the edit is re-applied on top of the current row, keeping
+    // the seats booked in the meantime, and retried a few times before giving up.
+    // The edit's available seats are as returned by getFlightByNumber, i.e. with held seats taken off.
+    // No lock is held across the database calls; the stripe's write lock is only taken to swap
+    // the cached copy, see replaceCachedFlight.
     public boolean updateFlight(String flightNumber, Flight updatedFlight) {
         try {
-            flightDAO.updateFlight(updatedFlight);
-            return true;
+            // Held seats are free as far as the row is concerned; cacheFlight takes them off again
+            int held = heldCount(flightNumber);
+            updatedFlight.setAvailableSeats(Math.min(updatedFlight.getTotalSeats(), updatedFlight.getAvailableSeats() + held));
+            for (int attempt = 1; attempt <= UPDATE_ATTEMPTS; attempt++) {
+                long seen = cachedVersion(flightNumber);
+                if (flightDAO.updateFlight(updatedFlight)) {
+                    replaceCachedFlight(updatedFlight, seen);
+                    return true;
+                }
+
+                Flight current = flightDAO.getFlightByNumber(flightNumber);
+                if (current == null) {
+                    return false;
+                }
+                rebase(updatedFlight, current);
+                if (attempt < UPDATE_ATTEMPTS) {
+                    backOff(attempt);
+                }
+            }
+            System.out.println("Flight " + flightNumber + " kept changing; update not applied after "
+                    + UPDATE_ATTEMPTS + " attempts");
+            return false;
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
         }
     }
 
+    // Every seat change made in this process bumps the cached copy's version once its row is
+    // written, so an unchanged version means the row read or written after `seen` was taken is
+    // still what the cache should hold. If a booking or cancellation landed in between, the row
+    // is read again and the swap retried; after a few tries the read is done under the lock.
+    private void replaceCachedFlight(Flight flight, long seen) throws SQLException {
+        String flightNumber = flight.getFlightNumber();
+        for (int attempt = 1; attempt < UPDATE_ATTEMPTS; attempt++) {
+            if (swapIfUnchanged(flight, seen)) {
+                return;
+            }
+            seen = cachedVersion(flightNumber);
+            flight = flightDAO.getFlightByNumber(flightNumber);
+            if (flight == null) {
+                evictFlight(flightNumber);
+                return;
+            }
+        }
+
+        Lock lock = stripe(flightNumber).writeLock();
+        lock.lock();
+        try {
+            if (!swapIfUnchanged(flight, seen)) {
+                Flight current = flightDAO.getFlightByNumber(flightNumber);
+                evictFlight(flightNumber);
+                if (current != null) {
+                    cacheFlight(current);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean swapIfUnchanged(Flight flight, long seen) {
+        Lock lock = stripe(flight.getFlightNumber()).writeLock();
+        lock.lock();
+        try {
+            if (cachedVersion(flight.getFlightNumber()) != seen) {
+                return false;
+            }
+            evictFlight(flight.getFlightNumber());
+            cacheFlight(flight);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Version of the cached copy, or -1 when the flight is not cached
+    private long cachedVersion(String flightNumber) {
+        Flight cached = flightsByNumber.get(flightNumber);
+        return cached == null ? -1 : cached.getVersion();
+    }
+
+    // Moves an edit onto the latest row: the edited fields win, but available seats are taken from
+    // the row and only shifted by the change in capacity, so concurrent bookings are not lost
+    private static void rebase(Flight edit, Flight current) {
+        int available = current.getAvailableSeats() + (edit.getTotalSeats() - current.getTotalSeats());
+        edit.setAvailableSeats(Math.max(0, Math.min(available, edit.getTotalSeats())));
+        edit.setVersion(current.getVersion());
+    }
+
+    private static void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, UPDATE_BACKOFF_MS << attempt));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     public boolean removeFlight(String flightNumber) {
         try {
             flightDAO.deleteFlight(flightNumber);
+            evictFlight(flightNumber);
             return true;
         } catch (SQLException e) {
             e.printStackTrace();
@@ -56,52 +220,632 @@ public class FlightService {
     }
 
     public Flight getFlightByNumber(String flightNumber) {
+        Flight cached = flightsByNumber.get(flightNumber);
+        if (cached != null) {
+            cacheHits.increment();
+            return cached;
+        }
+        cacheMisses.increment();
+
         try {
-            return flightDAO.getFlightByNumber(flightNumber);
+            return loadFlight(flightNumber);
         } catch (SQLException e) {
             e.printStackTrace();
             return null;
         }
     }
 
+    public CompletableFuture<Flight> getFlightByNumberAsync(String flightNumber) {
+        Flight cached = flightsByNumber.get(flightNumber);
+        if (cached != null) {
+            cacheHits.increment();
+            return CompletableFuture.completedFuture(cached);
+        }
+        cacheMisses.increment();
+        return async.submit(() -> loadFlight(flightNumber));
+    }
+
+    // Like getFlightByNumber, but a database error is thrown instead of looking like a missing flight
+    public Flight tryGetFlightByNumber(String flightNumber) throws SQLException {
+        Flight cached = flightsByNumber.get(flightNumber);
+        return cached != null ? cached : loadFlight(flightNumber);
+    }
+
+    private Flight loadFlight(String flightNumber) throws SQLException {
+        Flight flight = flightDAO.getFlightByNumber(flightNumber);
+        if (flight != null) {
+            cacheFlight(flight);
+            return flight;
+        }
+        // A scheduled flight can be looked up by number before it has a row; it gets one when booked
+        return unsavedScheduledFlight(flightNumber);
+    }
+
     public List<Flight> getAllFlights() {
+        if (catalogLoaded) {
+            cacheHits.increment();
+        } else {
+            cacheMisses.increment();
+            if (!loadCatalog()) {
+                return new ArrayList<>();
+            }
+        }
+        return new ArrayList<>(flightsByNumber.values());
+    }
+
+    // One page of flights ordered by flight number. Pass null for the first page and then the
+    // previous page's cursor; served from memory once the catalog is loaded.
+    public Page<Flight> getFlightsPage(String cursor, int pageSize) {
+        String[] key = Page.decodeCursor(cursor, 1);
+        String after = key == null ? null : key[0];
+        int size = Page.clampPageSize(pageSize);
+
+        List<Flight> rows = new ArrayList<>(size + 1);
+        if (catalogLoaded) {
+            cacheHits.increment();
+            for (Flight flight : (after == null ? flightsByNumber : flightsByNumber.tailMap(after, false)).values()) {
+                rows.add(flight);
+                if (rows.size() > size) {
+                    break;
+                }
+            }
+        } else {
+            cacheMisses.increment();
+            try {
+                rows = flightDAO.getFlightsAfter(after, size + 1);
+            } catch (SQLException e) {
+                e.printStackTrace();
+                return Page.empty();
+            }
+        }
+        return Page.of(rows, size, flight -> Page.encodeCursor(flight.getFlightNumber()));
+    }
+
+    // Stored flights plus the scheduled flights for the date that have no row yet. Searching
+    // writes nothing; a scheduled flight is stored when its first seat is booked or held.
+    public List<Flight> searchFlights(String origin, String destination, LocalDateTime date) {
+        if (!catalogLoaded) {
+            loadCatalog();
+        }
+        LocalDate day = date.toLocalDate();
         try {
-            return flightDAO.getAllFlights();
+            loadSchedulesOrThrow();
         } catch (SQLException e) {
             e.printStackTrace();
-            return new ArrayList<>();
+            return routeIndex.search(origin, destination, day);
         }
+        return withScheduledFlights(routeIndex.search(origin, destination, day), origin, destination, day);
     }
 
-    public List<Flight> searchFlights(String origin, String destination, LocalDateTime date) {
-        return flights.stream()
-                .filter(flight -> flight.getOrigin().equalsIgnoreCase(origin) &&
-                        flight.getDestination().equalsIgnoreCase(destination) &&
-                        flight.getDepartureTime().toLocalDate().equals(date.toLocalDate()) &&
-                        flight.getAvailableSeats() > 0)
-                .collect(Collectors.toList());
+    // Like searchFlights, but a database error is thrown instead of giving a partial or empty result
+    public List<Flight> trySearchFlights(String origin, String destination, LocalDateTime date) throws SQLException {
+        loadCatalogOrThrow();
+        loadSchedulesOrThrow();
+        LocalDate day = date.toLocalDate();
+        return withScheduledFlights(routeIndex.search(origin, destination, day), origin, destination, day);
+    }
+
+    public CompletableFuture<List<Flight>> getAllFlightsAsync() {
+        if (catalogLoaded) {
+            cacheHits.increment();
+            return CompletableFuture.completedFuture(new ArrayList<>(flightsByNumber.values()));
+        }
+        cacheMisses.increment();
+        return async.submit(() -> {
+            loadCatalogOrThrow();
+            return new ArrayList<>(flightsByNumber.values());
+        });
+    }
+
+    // Served from memory once the catalog and the schedules are loaded
+    public CompletableFuture<List<Flight>> searchFlightsAsync(String origin, String destination, LocalDateTime date) {
+        LocalDate day = date.toLocalDate();
+        if (catalogLoaded && schedulesLoaded) {
+            return CompletableFuture.completedFuture(withScheduledFlights(routeIndex.search(origin, destination, day), origin, destination, day));
+        }
+        return async.submit(() -> trySearchFlights(origin, destination, date));
+    }
+
+    // Adds a recurring schedule. No flights are written for it here; each date's flight is stored
+    // when its first seat is booked or held. Returns false if the schedule is invalid or the
+    // flight number is taken.
+    public boolean addSchedule(FlightSchedule schedule) {
+        String problem = validateSchedule(schedule);
+        if (problem != null) {
+            System.out.println("Invalid schedule: " + problem);
+            return false;
+        }
+        try {
+            loadSchedulesOrThrow();
+            if (schedulesByNumber.containsKey(schedule.getFlightNumber())) {
+                return false;
+            }
+            scheduleDAO.addSchedule(schedule);
+            indexSchedule(schedule);
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    // Stops creating flights from the schedule; flights already created from it stay bookable
+    public boolean removeSchedule(String flightNumber) {
+        try {
+            if (!scheduleDAO.deleteSchedule(flightNumber)) {
+                return false;
+            }
+            FlightSchedule removed = schedulesByNumber.remove(flightNumber);
+            if (removed != null) {
+                List<FlightSchedule> onRoute = schedulesByRoute.get(FlightRouteIndex.routeKey(removed.getOrigin(), removed.getDestination()));
+                if (onRoute != null) {
+                    onRoute.remove(removed);
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    public List<FlightSchedule> getSchedules() {
+        try {
+            loadSchedulesOrThrow();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>(schedulesByNumber.values());
+    }
+
+    // The reason the schedule cannot be added, or null if it is valid
+    private static String validateSchedule(FlightSchedule schedule) {
+        String number = schedule.getFlightNumber();
+        if (number == null || number.trim().isEmpty() || number.length() > FlightSchedule.MAX_FLIGHT_NUMBER_LENGTH) {
+            return "flight number must be 1 to " + FlightSchedule.MAX_FLIGHT_NUMBER_LENGTH + " characters";
+        }
+        if (schedule.getDaysOfWeek().isEmpty()) {
+            return "it must operate on at least one day of the week";
+        }
+        if (schedule.getValidTo().isBefore(schedule.getValidFrom())) {
+            return "it must end on or after its first day";
+        }
+        if (schedule.getTotalSeats() <= 0 || schedule.getPrice() <= 0) {
+            return "seats and price must be positive";
+        }
+        return null;
+    }
+
+    // Adds unsaved flights for the route's schedules that operate on the date and have no row
+    // cached yet, keeping the list in departure order. The schedules must be loaded.
+    private List<Flight> withScheduledFlights(List<Flight> stored, String origin, String destination, LocalDate date) {
+        List<FlightSchedule> onRoute = schedulesByRoute.get(FlightRouteIndex.routeKey(origin, destination));
+        if (onRoute == null || onRoute.isEmpty()) {
+            return stored;
+        }
+        List<Flight> merged = new ArrayList<>(stored);
+        for (FlightSchedule schedule : onRoute) {
+            if (isBookable(schedule, date) && !flightsByNumber.containsKey(schedule.getInstanceNumber(date))) {
+                merged.add(schedule.createFlight(date));
+            }
+        }
+        if (merged.size() > stored.size()) {
+            merged.sort(Comparator.comparing(Flight::getDepartureTime));
+        }
+        return merged;
+    }
+
+    // True if the number has the form a schedule gives its flights, whether or not the schedule
+    // operates on that date; such numbers cannot be used for one-off flights
+    boolean isScheduleInstanceNumber(String flightNumber) throws SQLException {
+        return scheduleOf(flightNumber) != null;
+    }
+
+    // Stores a scheduled flight before its first seat is booked or held, and returns the stored
+    // flight. Any other flight is returned as it is. Returns null for a date that cannot be booked.
+    // Must be called before bookingLock is taken, since caching the new row needs the write lock.
+    Flight materializeIfScheduled(Flight flight) throws SQLException {
+        String flightNumber = flight.getFlightNumber();
+        if (flightsByNumber.containsKey(flightNumber)) {
+            return flight;
+        }
+        FlightSchedule schedule = scheduleOf(flightNumber);
+        if (schedule == null) {
+            return flight;
+        }
+        LocalDate date = schedule.parseInstanceDate(flightNumber);
+        return isBookable(schedule, date) ? materialize(schedule, date) : null;
+    }
+
+    // The schedule's flight for a bookable date, not saved, or null if the number is not one
+    private Flight unsavedScheduledFlight(String flightNumber) throws SQLException {
+        FlightSchedule schedule = scheduleOf(flightNumber);
+        if (schedule == null) {
+            return null;
+        }
+        LocalDate date = schedule.parseInstanceDate(flightNumber);
+        return isBookable(schedule, date) ? schedule.createFlight(date) : null;
+    }
+
+    // The schedule the number is an instance of, or null
+    private FlightSchedule scheduleOf(String flightNumber) throws SQLException {
+        int dash = flightNumber.lastIndexOf('-');
+        if (dash <= 0) {
+            return null;
+        }
+        loadSchedulesOrThrow();
+        FlightSchedule schedule = schedulesByNumber.get(flightNumber.substring(0, dash));
+        return schedule != null && schedule.parseInstanceDate(flightNumber) != null ? schedule : null;
+    }
+
+    // Only dates from today up to the booking horizon are offered, so neither history nor the
+    // far future can be used to fill the table
+    private static boolean isBookable(FlightSchedule schedule, LocalDate date) {
+        LocalDate today = LocalDate.now();
+        return schedule.operatesOn(date) && !date.isBefore(today) && !date.isAfter(today.plusDays(SCHEDULE_HORIZON_DAYS));
+    }
+
+    // Returns the schedule's flight for the date, inserting and caching it if this is the first booking
+    private Flight materialize(FlightSchedule schedule, LocalDate date) throws SQLException {
+        String flightNumber = schedule.getInstanceNumber(date);
+        Flight cached = flightsByNumber.get(flightNumber);
+        if (cached != null) {
+            return cached;
+        }
+        // Two bookings for the same date must end up sharing one cached instance
+        synchronized (schedule) {
+            cached = flightsByNumber.get(flightNumber);
+            if (cached != null) {
+                return cached;
+            }
+            // Another application instance may have created it already, with seats booked
+            Flight flight = flightDAO.insertFlightIfAbsent(schedule.createFlight(date));
+            if (flight != null) {
+                cacheFlight(flight);
+            }
+            return flight;
+        }
+    }
+
+    private void loadSchedulesOrThrow() throws SQLException {
+        if (schedulesLoaded) {
+            return;
+        }
+        synchronized (schedulesByNumber) {
+            if (schedulesLoaded) {
+                return;
+            }
+            for (FlightSchedule schedule : scheduleDAO.getAllSchedules()) {
+                indexSchedule(schedule);
+            }
+            schedulesLoaded = true;
+        }
+    }
+
+    private void indexSchedule(FlightSchedule schedule) {
+        schedulesByNumber.put(schedule.getFlightNumber(), schedule);
+        schedulesByRoute.computeIfAbsent(FlightRouteIndex.routeKey(schedule.getOrigin(), schedule.getDestination()),
+                k -> new CopyOnWriteArrayList<>()).add(schedule);
+    }
+
+    // Drops one flight from the cache so the next read goes to the database,
+    // e.g. after another process has changed it
+    public void invalidateFlight(String flightNumber) {
+        evictFlight(flightNumber);
+    }
+
+    // Discards everything cached and reloads the flights table
+    public synchronized void invalidateAll() {
+        for (ReadWriteLock stripe : seatLocks) {
+            stripe.writeLock().lock();
+        }
+        try {
+            catalogLoaded = false;
+            flightsByNumber.clear();
+            routeIndex.clear();
+            synchronized (schedulesByNumber) {
+                schedulesLoaded = false;
+                schedulesByNumber.clear();
+                schedulesByRoute.clear();
+            }
+        } finally {
+            for (ReadWriteLock stripe : seatLocks) {
+                stripe.writeLock().unlock();
+            }
+        }
+        loadCatalog();
+    }
+
+    public CacheStats getCacheStats() {
+        return new CacheStats(cacheHits.sum(), cacheMisses.sum(), flightsByNumber.size());
+    }
+
+    private boolean loadCatalog() {
+        try {
+            loadCatalogOrThrow();
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private synchronized void loadCatalogOrThrow() throws SQLException {
+        if (catalogLoaded) {
+            return;
+        }
+        for (Flight flight : flightDAO.getAllFlights()) {
+            // Keep instances already handed out so callers holding them stay in sync
+            if (!flightsByNumber.containsKey(flight.getFlightNumber())) {
+                cacheFlight(flight);
+            }
+        }
+        catalogLoaded = true;
+    }
+
+    // Makes flights written straight to the database by the bulk importer visible without a reload
+    void cacheFlights(List<Flight> flights) {
+        for (Flight flight : flights) {
+            cacheFlight(flight);
+        }
+    }
+
+    private void cacheFlight(Flight flight) {
+        Lock lock = stripe(flight.getFlightNumber()).writeLock();
+        lock.lock();
+        try {
+            if (flightsByNumber.get(flight.getFlightNumber()) != flight) {
+                int held = heldCount(flight.getFlightNumber());
+                if (held > 0) {
+                    flight.setAvailableSeats(Math.max(0, flight.getAvailableSeats() - held));
+                }
+            }
+            flightsByNumber.put(flight.getFlightNumber(), flight);
+            routeIndex.add(flight);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void evictFlight(String flightNumber) {
+        Lock lock = stripe(flightNumber).writeLock();
+        lock.lock();
+        try {
+            flightsByNumber.remove(flightNumber);
+            routeIndex.remove(flightNumber);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReadWriteLock stripe(String flightNumber) {
+        int h = flightNumber.hashCode();
+        return seatLocks[(h ^ (h >>> 16)) & (LOCK_STRIPES - 1)];
     }
 
     public boolean bookFlight(Flight flight) {
-        if (flight.getAvailableSeats() > 0) {
-            flight.bookSeat();
+        try {
+            flight = materializeIfScheduled(flight);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+        if (flight == null) {
+            return false;
+        }
+        Lock lock = bookingLock(flight.getFlightNumber());
+        lock.lock();
+        try {
+            if (!reserveSeat(flight)) {
+                return false;
+            }
+            boolean reserved = false;
             try {
-                flightDAO.updateSeats(flight.getFlightNumber(), flight.getAvailableSeats());
-                return true;
+                reserved = flightDAO.reserveSeat(flight.getFlightNumber());
             } catch (SQLException e) {
                 e.printStackTrace();
+            }
+            if (!reserved) {
+                releaseReservedSeat(flight);
                 return false;
             }
+            confirmReservedSeat(flight);
+            return true;
+        } finally {
+            lock.unlock();
         }
-        return false;
     }
 
     public void cancelFlightSeat(Flight flight) {
-        flight.cancelSeat();
+        Lock lock = bookingLock(flight.getFlightNumber());
+        lock.lock();
         try {
-            flightDAO.updateSeats(flight.getFlightNumber(), flight.getAvailableSeats());
+            if (flightDAO.releaseSeat(flight.getFlightNumber())) {
+                recordSeatReleased(flight);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Reserves a seat for the user until the hold expires, is released, or is confirmed as a booking.
+    // Holds live in memory only; the database count changes when the hold is confirmed.
+    // Returns null if the flight is sold out, or is a scheduled flight on a date that cannot be booked.
+    public SeatHold holdSeat(Flight flight, User user, Duration ttl) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Hold duration must be positive");
+        }
+        try {
+            flight = materializeIfScheduled(flight);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+        if (flight == null) {
+            return null;
+        }
+
+        Flight held;
+        Lock lock = bookingLock(flight.getFlightNumber());
+        lock.lock();
+        try {
+            held = sharedCopy(flight);
+            if (!held.bookSeat()) {
+                return null;
+            }
+            heldSeats.computeIfAbsent(flight.getFlightNumber(), k -> new AtomicInteger()).incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        SeatHold hold = new SeatHold(flight.getFlightNumber(), user.getUsername(), now, now.plus(ttl));
+        ActiveHold active = new ActiveHold(hold, held);
+        // Registered before the timer is armed so an expiry can never miss it
+        holds.put(hold.getHoldId(), active);
+        active.timeout = holdTimer.schedule(() -> expireHold(hold.getHoldId()), ttl.toMillis(), TimeUnit.MILLISECONDS);
+        return hold;
+    }
+
+    // Gives the held seat back straight away. Returns false if the hold has already
+    // expired or been confirmed, or belongs to someone else.
+    public boolean releaseHold(String holdId, User user) {
+        SeatHold hold = getHold(holdId);
+        if (hold == null) {
+            return false;
+        }
+        Lock lock = bookingLock(hold.getFlightNumber());
+        lock.lock();
+        try {
+            Flight held = claimHold(holdId, user);
+            if (held == null) {
+                return false;
+            }
+            held.cancelSeat();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public SeatHold getHold(String holdId) {
+        ActiveHold active = holds.get(holdId);
+        return active != null ? active.hold : null;
+    }
+
+    public int getActiveHoldCount() {
+        return holds.size();
+    }
+
+    // Takes the hold out of the registry and stops its timer, leaving its seat reserved in memory.
+    // Returns the copy of the flight that now carries the seat, or null if the hold is gone or not
+    // the user's. Caller holds the flight's booking lock, so the cached copy cannot be swapped
+    // before the seat is either confirmed or given back.
+    Flight claimHold(String holdId, User user) {
+        ActiveHold active = holds.get(holdId);
+        if (active == null || !active.hold.getUsername().equals(user.getUsername())) {
+            return null;
+        }
+        if (!holds.remove(holdId, active)) {
+            return null;
+        }
+        TimingWheel.Timeout timeout = active.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        releaseHeldSeat(active.hold.getFlightNumber());
+        return currentCopy(active);
+    }
+
+    private void expireHold(String holdId) {
+        ActiveHold active = holds.get(holdId);
+        if (active == null) {
+            return;
+        }
+        Lock lock = bookingLock(active.hold.getFlightNumber());
+        lock.lock();
+        try {
+            if (holds.remove(holdId, active)) {
+                releaseHeldSeat(active.hold.getFlightNumber());
+                currentCopy(active).cancelSeat();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // The cached flight if there is one: it may have been replaced since the hold was placed,
+    // and cacheFlight moved the held seat onto the new copy
+    private Flight currentCopy(ActiveHold active) {
+        Flight cached = flightsByNumber.get(active.hold.getFlightNumber());
+        return cached != null ? cached : active.flight;
+    }
+
+    private int heldCount(String flightNumber) {
+        AtomicInteger count = heldSeats.get(flightNumber);
+        return count != null ? count.get() : 0;
+    }
+
+    private void releaseHeldSeat(String flightNumber) {
+        heldSeats.computeIfPresent(flightNumber, (k, count) -> count.decrementAndGet() <= 0 ? null : count);
+    }
+
+    // Held while a seat is reserved and written to the database
+    Lock bookingLock(String flightNumber) {
+        return stripe(flightNumber).readLock();
+    }
+
+    // Takes a seat from the shared in-memory copy with a compare-and-set. A sold-out flight is
+    // rejected here without a database round trip; otherwise the database decrement must follow.
+    boolean reserveSeat(Flight flight) {
+        return sharedCopy(flight).bookSeat();
+    }
+
+    // Returns a seat taken by reserveSeat when the database write did not happen
+    void releaseReservedSeat(Flight flight) {
+        sharedCopy(flight).cancelSeat();
+    }
+
+    // After the database commit, brings the caller's own copy in line if it is not the shared one.
+    // The row's version was bumped by the decrement, so the copies follow it; the caller still
+    // holds bookingLock, which keeps updateFlight from reading the version in between.
+    void confirmReservedSeat(Flight flight) {
+        Flight shared = sharedCopy(flight);
+        shared.incrementVersion();
+        if (shared != flight) {
+            flight.bookSeat();
+            flight.incrementVersion();
+        }
+    }
+
+    // Applies a seat release already committed to the database to the caller's copy
+    // and to the cached copy, when those are different objects, along with the version bump
+    void recordSeatReleased(Flight flight) {
+        flight.cancelSeat();
+        flight.incrementVersion();
+        Flight cached = flightsByNumber.get(flight.getFlightNumber());
+        if (cached != null && cached != flight) {
+            cached.cancelSeat();
+            cached.incrementVersion();
+        }
+    }
+
+    private Flight sharedCopy(Flight flight) {
+        Flight cached = flightsByNumber.get(flight.getFlightNumber());
+        return cached != null ? cached : flight;
+    }
+
+    private static class ActiveHold {
+        private final SeatHold hold;
+        // The instance the seat was taken from, used only while the flight is not cached
+        private final Flight flight;
+        private volatile TimingWheel.Timeout timeout;
+
+        ActiveHold(SeatHold hold, Flight flight) {
+            this.hold = hold;
+            this.flight = flight;
         }
     }
 }
@@ -0,0 +1,78 @@
+package service;
+
+import java.util.List;
+import java.util.Base64;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.function.Function;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One page of a keyset-paginated listing. The cursor encodes the sort key of the last item,
+ * so the next page is a seek on an index rather than an OFFSET scan, and stays equally
+ * fast however deep the caller pages. A null cursor means this is the last page.
+ */
+public class Page<T> {
+    public static final int MAX_PAGE_SIZE = 500;
+    private static final char SEPARATOR = '\u0000';
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    Page(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+
+    // Builds a page from up to pageSize + 1 rows; the extra row only tells that another page exists
+    static <T> Page<T> of(List<T> rows, int pageSize, Function<T, String> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, pageSize));
+        return new Page<>(items, cursorOf.apply(items.get(pageSize - 1)));
+    }
+
+    static <T> Page<T> empty() {
+        return new Page<>(new ArrayList<>(), null);
+    }
+
+    static int clampPageSize(int pageSize) {
+        return Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+    }
+
+    // Cursors are opaque to callers; they are the sort key parts, base64url encoded
+    static String encodeCursor(String... keyParts) {
+        String joined = String.join(String.valueOf(SEPARATOR), keyParts);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(joined.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Returns null for a null cursor (first page)
+    static String[] decodeCursor(String cursor, int keyParts) {
+        if (cursor == null) {
+            return null;
+        }
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(String.valueOf(SEPARATOR), -1);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor", e);
+        }
+        if (parts.length != keyParts) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,91 @@
+package service;
+
+public class PoolStats {
+    private final int active;
+    private final int idle;
+    private final int waiters;
+    private final int total;
+    private final int maxSize;
+    private final long borrowCount;
+    private final long borrowTimeouts;
+    private final long evictedCount;
+    private final long totalWaitMillis;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+
+    public PoolStats(int active, int idle, int waiters, int total, int maxSize,
+                     long borrowCount, long borrowTimeouts, long evictedCount, long totalWaitMillis,
+                     long statementCacheHits, long statementCacheMisses) {
+        this.active = active;
+        this.idle = idle;
+        this.waiters = waiters;
+        this.total = total;
+        this.maxSize = maxSize;
+        this.borrowCount = borrowCount;
+        this.borrowTimeouts = borrowTimeouts;
+        this.evictedCount = evictedCount;
+        this.totalWaitMillis = totalWaitMillis;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getWaiters() {
+        return waiters;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public long getBorrowTimeouts() {
+        return borrowTimeouts;
+    }
+
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+
+    public long getTotalWaitMillis() {
+        return totalWaitMillis;
+    }
+
+    public double getAverageWaitMillis() {
+        return borrowCount == 0 ? 0.0 : (double) totalWaitMillis / borrowCount;
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    public double getStatementCacheHitRate() {
+        long lookups = statementCacheHits + statementCacheMisses;
+        return lookups == 0 ? 0.0 : (double) statementCacheHits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PoolStats{active=%d, idle=%d, waiters=%d, total=%d/%d, borrows=%d, timeouts=%d, evicted=%d, avgWait=%.2fms, stmtHits=%d, stmtMisses=%d}",
+                active, idle, waiters, total, maxSize, borrowCount, borrowTimeouts, evictedCount, getAverageWaitMillis(),
+                statementCacheHits, statementCacheMisses);
+    }
+}
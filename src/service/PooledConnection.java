@@ -0,0 +1,290 @@
+package service;
+
+import java.util.Map;
+import java.util.List;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.sql.PreparedStatement;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Method;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+
+class PooledConnection {
+    private final ConnectionPool pool;
+    private final Connection physical;
+    private final Map<String, CachedStatement> statementCache;
+    private final boolean cacheStatements;
+    private volatile long lastReturned;
+
+    PooledConnection(ConnectionPool pool, Connection physical, int statementCacheSize) {
+        this.pool = pool;
+        this.physical = physical;
+        this.lastReturned = System.currentTimeMillis();
+        this.cacheStatements = statementCacheSize > 0;
+        // Only the borrowing thread touches the cache, so a plain LRU map is enough
+        this.statementCache = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() > statementCacheSize) {
+                    eldest.getValue().evict();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // Each borrow gets its own handle so a stale reference cannot return the connection twice
+    Connection lease() {
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(),
+            new Class<?>[] { Connection.class },
+            new Lease()
+        );
+    }
+
+    boolean isUsable(int validationTimeoutSeconds) {
+        try {
+            return !physical.isClosed() && physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    boolean reset() {
+        try {
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            physical.clearWarnings();
+            lastReturned = System.currentTimeMillis();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    long getLastReturned() {
+        return lastReturned;
+    }
+
+    void closePhysical() {
+        for (CachedStatement cached : statementCache.values()) {
+            cached.evict();
+        }
+        statementCache.clear();
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            // Nothing useful to do with a connection we are discarding anyway
+        }
+    }
+
+    private class Lease implements InvocationHandler {
+        private boolean returned;
+        private boolean broken;
+        // Everything this borrow opened, so nothing outlives the lease
+        private final List<Statement> statements = new ArrayList<>();
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        closeStatements();
+                        pool.release(PooledConnection.this, broken);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                default:
+                    break;
+            }
+
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if (name.equals("prepareStatement") && args.length == 1) {
+                PreparedStatement stmt = prepareCached((Connection) proxy, (String) args[0]);
+                statements.add(stmt);
+                return stmt;
+            }
+            try {
+                Object result = method.invoke(physical, args);
+                if (result instanceof Statement) {
+                    statements.add((Statement) result);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) {
+                    String state = ((SQLException) cause).getSQLState();
+                    // SQLSTATE class 08 means the link itself failed
+                    if (state != null && state.startsWith("08")) {
+                        broken = true;
+                    }
+                }
+                throw cause;
+            }
+        }
+
+        private void closeStatements() {
+            // Closing twice is a no-op, so statements the caller already closed are harmless here
+            for (Statement stmt : statements) {
+                try {
+                    stmt.close();
+                } catch (SQLException e) {
+                    // Can't tell what the driver still holds open, so don't reuse the connection
+                    broken = true;
+                }
+            }
+            statements.clear();
+        }
+
+        private PreparedStatement prepareCached(Connection owner, String sql) throws SQLException {
+            CachedStatement cached = statementCache.get(sql);
+            if (cached != null && !cached.inUse) {
+                pool.recordStatementCacheHit();
+            } else {
+                pool.recordStatementCacheMiss();
+                PreparedStatement stmt = prepare(sql);
+                boolean oneOff = cached != null || !cacheStatements;
+                cached = new CachedStatement(stmt);
+                // Marked in use before it goes into the cache, so making room can never close it
+                cached.inUse = true;
+                if (oneOff) {
+                    // Same SQL is already open on this connection, or caching is off; closed on release
+                    cached.evicted = true;
+                } else {
+                    statementCache.put(sql, cached);
+                }
+                return cached.handle(owner);
+            }
+            cached.inUse = true;
+            return cached.handle(owner);
+        }
+
+        private PreparedStatement prepare(String sql) throws SQLException {
+            try {
+                return physical.prepareStatement(sql);
+            } catch (SQLException e) {
+                String state = e.getSQLState();
+                if (state != null && state.startsWith("08")) {
+                    broken = true;
+                }
+                throw e;
+            }
+        }
+    }
+
+    // A prepared statement kept open across borrows; callers get a handle whose close() only releases it
+    private static class CachedStatement {
+        private final PreparedStatement physical;
+        private boolean inUse;
+        private boolean evicted;
+
+        CachedStatement(PreparedStatement physical) {
+            this.physical = physical;
+        }
+
+        PreparedStatement handle(Connection owner) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                new StatementHandle(owner)
+            );
+        }
+
+        void release() {
+            inUse = false;
+            if (evicted) {
+                closeQuietly();
+                return;
+            }
+            try {
+                physical.clearParameters();
+                physical.clearBatch();
+                // Put back the JDBC defaults so one borrower's limits never reach the next
+                physical.setFetchSize(0);
+                physical.setMaxRows(0);
+                physical.setMaxFieldSize(0);
+                physical.setQueryTimeout(0);
+                physical.setFetchDirection(ResultSet.FETCH_FORWARD);
+            } catch (SQLException e) {
+                evicted = true;
+                closeQuietly();
+            }
+        }
+
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                // Statement is being dropped from the cache either way
+            }
+        }
+
+        private class StatementHandle implements InvocationHandler {
+            private final Connection owner;
+            private boolean closed;
+
+            StatementHandle(Connection owner) {
+                this.owner = owner;
+            }
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!closed) {
+                            closed = true;
+                            release();
+                        }
+                        return null;
+                    case "isClosed":
+                        return closed || physical.isClosed();
+                    case "getConnection":
+                        return owner;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "CachedStatement[" + physical + "]";
+                    default:
+                        break;
+                }
+
+                if (closed) {
+                    throw new SQLException("Statement is closed");
+                }
+                try {
+                    return method.invoke(physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+    }
+}
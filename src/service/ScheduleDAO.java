@@ -0,0 +1,85 @@
+package service;
+
+import java.sql.*;
+import java.util.Set;
+import java.util.List;
+import java.util.EnumSet;
+import java.util.ArrayList;
+import java.time.DayOfWeek;
+import model.FlightSchedule;
+
+public class ScheduleDAO {
+    private static final String INSERT_SCHEDULE = "INSERT INTO flight_schedules (flight_number, airline, origin, destination, departure_time, arrival_time, days_of_week, valid_from, valid_to, total_seats, price) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_SCHEDULE = "DELETE FROM flight_schedules WHERE flight_number=?";
+    private static final String GET_ALL_SCHEDULES = "SELECT * FROM flight_schedules";
+
+    public void addSchedule(FlightSchedule schedule) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(INSERT_SCHEDULE)) {
+            stmt.setString(1, schedule.getFlightNumber());
+            stmt.setString(2, schedule.getAirline());
+            stmt.setString(3, schedule.getOrigin());
+            stmt.setString(4, schedule.getDestination());
+            stmt.setTime(5, Time.valueOf(schedule.getDepartureTime()));
+            stmt.setTime(6, Time.valueOf(schedule.getArrivalTime()));
+            stmt.setInt(7, toMask(schedule.getDaysOfWeek()));
+            stmt.setDate(8, Date.valueOf(schedule.getValidFrom()));
+            stmt.setDate(9, Date.valueOf(schedule.getValidTo()));
+            stmt.setInt(10, schedule.getTotalSeats());
+            stmt.setDouble(11, schedule.getPrice());
+            stmt.executeUpdate();
+        }
+    }
+
+    // Flights already created from the schedule are left alone
+    public boolean deleteSchedule(String flightNumber) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(DELETE_SCHEDULE)) {
+            stmt.setString(1, flightNumber);
+            return stmt.executeUpdate() == 1;
+        }
+    }
+
+    public List<FlightSchedule> getAllSchedules() throws SQLException {
+        List<FlightSchedule> schedules = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(GET_ALL_SCHEDULES);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                schedules.add(new FlightSchedule(
+                    rs.getString("flight_number"),
+                    rs.getString("airline"),
+                    rs.getString("origin"),
+                    rs.getString("destination"),
+                    rs.getTime("departure_time").toLocalTime(),
+                    rs.getTime("arrival_time").toLocalTime(),
+                    fromMask(rs.getInt("days_of_week")),
+                    rs.getDate("valid_from").toLocalDate(),
+                    rs.getDate("valid_to").toLocalDate(),
+                    rs.getInt("total_seats"),
+                    rs.getDouble("price")
+                ));
+            }
+        }
+        return schedules;
+    }
+
+    // Days are stored as a bit mask, Monday in the lowest bit
+    static int toMask(Set<DayOfWeek> days) {
+        int mask = 0;
+        for (DayOfWeek day : days) {
+            mask |= 1 << (day.getValue() - 1);
+        }
+        return mask;
+    }
+
+    static Set<DayOfWeek> fromMask(int mask) {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if ((mask & (1 << (day.getValue() - 1))) != 0) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+}
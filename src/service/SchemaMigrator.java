@@ -0,0 +1,164 @@
+package service;
+
+import java.sql.*;
+import java.util.Set;
+import java.util.List;
+import java.util.HashSet;
+import java.util.ArrayList;
+import java.time.LocalDateTime;
+
+/**
+ * Applies numbered schema changes that the database has not seen yet and records
+ * each one in the schema_version table. Add new changes at the end of the list in
+ * the constructor and never edit one that has already shipped.
+ */
+public class SchemaMigrator {
+    private static final String CREATE_VERSION_TABLE = "CREATE TABLE IF NOT EXISTS schema_version ("
+            + "version INT PRIMARY KEY, description VARCHAR(200) NOT NULL, applied_at DATETIME NOT NULL)";
+    private static final String GET_APPLIED_VERSIONS = "SELECT version FROM schema_version";
+    private static final String RECORD_VERSION = "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)";
+    private static final String ACQUIRE_LOCK = "SELECT GET_LOCK('flight_booking_schema', ?)";
+    private static final String RELEASE_LOCK = "SELECT RELEASE_LOCK('flight_booking_schema')";
+    private static final int LOCK_TIMEOUT_SECONDS = 30;
+
+    // MySQL error codes for objects that already exist, e.g. when database_setup.sql created them
+    private static final int ER_DUP_FIELDNAME = 1060;
+    private static final int ER_DUP_KEYNAME = 1061;
+    private static final int ER_TABLE_EXISTS = 1050;
+
+    private final List<Migration> migrations = new ArrayList<>();
+
+    public SchemaMigrator() {
+        migrations.add(new Migration(1, "Indexes for route search and booking lookups",
+            "CREATE INDEX idx_flights_route ON flights (origin, destination, departure_time)",
+            "CREATE INDEX idx_bookings_user_date ON bookings (user_id, booking_date)",
+            "CREATE INDEX idx_bookings_flight_status ON bookings (flight_number, status)"
+        ));
+        migrations.add(new Migration(2, "Row version on flights for optimistic locking",
+            "ALTER TABLE flights ADD COLUMN version BIGINT NOT NULL DEFAULT 0"
+        ));
+        migrations.add(new Migration(3, "Idempotency keys on bookings",
+            "ALTER TABLE bookings ADD COLUMN idempotency_key VARCHAR(64) NULL",
+            "CREATE UNIQUE INDEX uq_bookings_idempotency ON bookings (user_id, idempotency_key)"
+        ));
+        migrations.add(new Migration(4, "Waitlist for sold-out flights",
+            "CREATE TABLE IF NOT EXISTS waitlist ("
+                + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "flight_number VARCHAR(20) NOT NULL, "
+                + "user_id VARCHAR(50) NOT NULL, "
+                + "priority INT NOT NULL DEFAULT 0, "
+                + "status VARCHAR(20) NOT NULL, "
+                + "created_at DATETIME NOT NULL, "
+                + "booking_id VARCHAR(50) NULL, "
+                + "INDEX idx_waitlist_queue (flight_number, status, priority DESC, id), "
+                + "INDEX idx_waitlist_user (user_id, created_at), "
+                + "INDEX idx_waitlist_status (status), "
+                + "FOREIGN KEY (user_id) REFERENCES users(username), "
+                + "FOREIGN KEY (flight_number) REFERENCES flights(flight_number))"
+        ));
+        migrations.add(new Migration(5, "Index for paging through bookings by date",
+            "CREATE INDEX idx_bookings_date ON bookings (booking_date, booking_id)"
+        ));
+        migrations.add(new Migration(6, "Recurring flight schedules",
+            "CREATE TABLE IF NOT EXISTS flight_schedules ("
+                + "flight_number VARCHAR(11) PRIMARY KEY, "
+                + "airline VARCHAR(50) NOT NULL, "
+                + "origin VARCHAR(50) NOT NULL, "
+                + "destination VARCHAR(50) NOT NULL, "
+                + "departure_time TIME NOT NULL, "
+                + "arrival_time TIME NOT NULL, "
+                + "days_of_week INT NOT NULL, "
+                + "valid_from DATE NOT NULL, "
+                + "valid_to DATE NOT NULL, "
+                + "total_seats INT NOT NULL, "
+                + "price DECIMAL(10,2) NOT NULL)"
+        ));
+    }
+
+    // Returns the number of migrations applied by this call
+    public int migrate() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            // Several application instances may start at once; only one of them migrates at a time
+            if (!acquireLock(conn)) {
+                throw new SQLException("Timed out waiting for the schema migration lock");
+            }
+            try {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(CREATE_VERSION_TABLE);
+                }
+
+                Set<Integer> applied = getAppliedVersions(conn);
+                int count = 0;
+                for (Migration migration : migrations) {
+                    if (applied.contains(migration.version)) {
+                        continue;
+                    }
+                    apply(conn, migration);
+                    count++;
+                }
+                return count;
+            } finally {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(RELEASE_LOCK);
+                }
+            }
+        }
+    }
+
+    public int getLatestVersion() {
+        return migrations.isEmpty() ? 0 : migrations.get(migrations.size() - 1).version;
+    }
+
+    private boolean acquireLock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(ACQUIRE_LOCK)) {
+            stmt.setInt(1, LOCK_TIMEOUT_SECONDS);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() && rs.getInt(1) == 1;
+        }
+    }
+
+    private Set<Integer> getAppliedVersions(Connection conn) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(GET_APPLIED_VERSIONS)) {
+            while (rs.next()) {
+                versions.add(rs.getInt("version"));
+            }
+        }
+        return versions;
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        // MySQL commits DDL implicitly, so each statement is made safe to re-run instead
+        for (String sql : migration.statements) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(sql);
+            } catch (SQLException e) {
+                int code = e.getErrorCode();
+                if (code != ER_DUP_KEYNAME && code != ER_DUP_FIELDNAME && code != ER_TABLE_EXISTS) {
+                    throw new SQLException("Schema migration " + migration.version + " failed: " + e.getMessage(), e);
+                }
+            }
+        }
+
+        try (PreparedStatement stmt = conn.prepareStatement(RECORD_VERSION)) {
+            stmt.setInt(1, migration.version);
+            stmt.setString(2, migration.description);
+            stmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+            stmt.executeUpdate();
+        }
+        System.out.println("Applied schema migration " + migration.version + ": " + migration.description);
+    }
+
+    private static class Migration {
+        private final int version;
+        private final String description;
+        private final String[] statements;
+
+        Migration(int version, String description, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.statements = statements;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package service;
+
+import model.User;
+import model.Session;
+import java.util.Map;
+import java.util.Base64;
+import java.util.Iterator;
+import java.security.SecureRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Logged-in sessions keyed by an opaque random token. Validating a token is a single hash
+ * lookup; sessions idle for longer than the timeout are rejected on access and swept out
+ * periodically by a background thread.
+ */
+public class SessionRegistry {
+    private static final int TOKEN_BYTES = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder TOKEN_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final long idleTimeoutMillis;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService sweeper;
+
+    public SessionRegistry(long idleTimeoutMillis) {
+        if (idleTimeoutMillis <= 0) {
+            throw new IllegalArgumentException("Session idle timeout must be positive");
+        }
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, idleTimeoutMillis / 4);
+        sweeper.scheduleWithFixedDelay(this::sweep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public Session open(User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        Session session = new Session(TOKEN_ENCODER.encodeToString(bytes), user, System.currentTimeMillis());
+        sessions.put(session.getToken(), session);
+        return session;
+    }
+
+    // Returns the live session for the token and marks it as used, or null if it is unknown or idle too long
+    public Session validate(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessions.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (isExpired(session, now)) {
+            sessions.remove(token, session);
+            return null;
+        }
+        session.touch(now);
+        return session;
+    }
+
+    public boolean close(String token) {
+        return token != null && sessions.remove(token) != null;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public void shutdown() {
+        sweeper.shutdownNow();
+        sessions.clear();
+    }
+
+    private boolean isExpired(Session session, long now) {
+        return now - session.getLastAccessedAt() > idleTimeoutMillis;
+    }
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        Iterator<Session> it = sessions.values().iterator();
+        while (it.hasNext()) {
+            if (isExpired(it.next(), now)) {
+                it.remove();
+            }
+        }
+    }
+}
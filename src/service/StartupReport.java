@@ -0,0 +1,55 @@
+package service;
+
+import java.util.Map;
+import java.util.LinkedHashMap;
+import java.util.function.Supplier;
+
+public class StartupReport {
+    // Phases in the order they finished
+    private final Map<String, Long> phaseMillis = new LinkedHashMap<>();
+    private final Map<String, Object> phaseResults = new LinkedHashMap<>();
+    private final long startNanos = System.nanoTime();
+    private volatile long totalMillis = -1;
+
+    <T> T time(String phase, Supplier<T> work) {
+        long start = System.nanoTime();
+        T result = null;
+        try {
+            result = work.get();
+            return result;
+        } finally {
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            synchronized (this) {
+                phaseMillis.put(phase, elapsed);
+                phaseResults.put(phase, result);
+            }
+        }
+    }
+
+    void finish() {
+        totalMillis = (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    public synchronized Map<String, Long> getPhaseMillis() {
+        return new LinkedHashMap<>(phaseMillis);
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder("Startup:");
+        for (Map.Entry<String, Long> phase : phaseMillis.entrySet()) {
+            sb.append(' ').append(phase.getKey()).append(' ').append(phase.getValue()).append(" ms");
+            Object result = phaseResults.get(phase.getKey());
+            if (result != null) {
+                sb.append(" (").append(result).append(')');
+            }
+            sb.append(',');
+        }
+        sb.append(" total ").append(totalMillis).append(" ms");
+        return sb.toString();
+    }
+}
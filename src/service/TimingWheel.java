@@ -0,0 +1,179 @@
+package service;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hashed timing wheel: timeouts are dropped into one of a fixed number of buckets by
+ * deadline, and a single thread visits one bucket per tick. Scheduling and cancelling are
+ * O(1) and a tick only touches the timeouts that hash to its bucket, so the cost does not
+ * grow with the number of outstanding timeouts the way per-timeout timers do.
+ */
+public class TimingWheel {
+    private final String name;
+    private final long tickNanos;
+    private final int mask;
+    private final List<List<Timeout>> buckets;
+    // New timeouts are handed to the worker through this queue so callers never touch the buckets
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private volatile Thread worker;
+    private volatile boolean stopped;
+    private long startNanos;
+    private long tick;
+
+    public TimingWheel(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive");
+        }
+        this.name = name;
+        this.tickNanos = unit.toNanos(tickDuration);
+        // Round the wheel up to a power of two so the bucket index is a mask
+        int size = Integer.highestOneBit(wheelSize - 1) << 1;
+        if (wheelSize == 1) {
+            size = 1;
+        }
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (stopped) {
+            throw new IllegalStateException("Timing wheel " + name + " has been stopped");
+        }
+        ensureStarted();
+        Timeout timeout = new Timeout(task, System.nanoTime() + unit.toNanos(delay));
+        outstanding.incrementAndGet();
+        pending.add(timeout);
+        return timeout;
+    }
+
+    public int getOutstandingCount() {
+        return outstanding.get();
+    }
+
+    public void stop() {
+        stopped = true;
+        Thread t = worker;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+
+    private void ensureStarted() {
+        if (worker != null) {
+            return;
+        }
+        synchronized (this) {
+            if (worker == null) {
+                startNanos = System.nanoTime();
+                Thread t = new Thread(this::run, name);
+                t.setDaemon(true);
+                worker = t;
+                t.start();
+            }
+        }
+    }
+
+    private void run() {
+        long start;
+        synchronized (this) {
+            start = startNanos;
+        }
+        while (!stopped) {
+            long nextTick = start + (tick + 1) * tickNanos;
+            long sleepNanos = nextTick - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (stopped) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+            transferPending(start);
+            expireBucket(buckets.get((int) (tick & mask)));
+            tick++;
+        }
+    }
+
+    private void transferPending(long start) {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.state.get() == Timeout.CANCELLED) {
+                continue;
+            }
+            long ticks = Math.max((timeout.deadlineNanos - start) / tickNanos, tick);
+            timeout.remainingRounds = (ticks - tick) / buckets.size();
+            buckets.get((int) (ticks & mask)).add(timeout);
+        }
+    }
+
+    private void expireBucket(List<Timeout> bucket) {
+        int kept = 0;
+        for (int i = 0; i < bucket.size(); i++) {
+            Timeout timeout = bucket.get(i);
+            if (timeout.state.get() == Timeout.CANCELLED) {
+                continue;
+            }
+            if (timeout.remainingRounds <= 0) {
+                timeout.expire();
+            } else {
+                timeout.remainingRounds--;
+                bucket.set(kept++, timeout);
+            }
+        }
+        // Drop everything past the survivors in one go
+        bucket.subList(kept, bucket.size()).clear();
+    }
+
+    public class Timeout {
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadlineNanos;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        // Returns false if the task has already run or was cancelled before
+        public boolean cancel() {
+            if (state.compareAndSet(WAITING, CANCELLED)) {
+                outstanding.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(WAITING, EXPIRED)) {
+                return;
+            }
+            outstanding.decrementAndGet();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -8,10 +8,16 @@ import java.util.ArrayList;
 
 public class UserDAO {
     private static final String CHECK_USER_EXISTS = "SELECT username FROM users WHERE username=?";
+    private static final String CHECK_EMAIL_EXISTS = "SELECT username FROM users WHERE email=? LIMIT 1";
+    private static final String GET_USERS_FIRST = "SELECT * FROM users ORDER BY username LIMIT ?";
+    private static final String GET_USERS_AFTER = "SELECT * FROM users WHERE username > ? ORDER BY username LIMIT ?";
 
     public UserDAO() {}
 
     private static final String INSERT_USER = "INSERT INTO users (username, password, email, full_name, role) VALUES (?, ?, ?, ?, ?)";
+    private static final String ENSURE_USER = INSERT_USER + " ON DUPLICATE KEY UPDATE username=username";
+    private static final String UPSERT_USER = INSERT_USER
+            + " ON DUPLICATE KEY UPDATE password=VALUES(password), email=VALUES(email), full_name=VALUES(full_name), role=VALUES(role)";
 
     public void createUser(User user) throws SQLException {
         Connection conn = null;
@@ -19,18 +25,19 @@ public class UserDAO {
             conn = DatabaseConnection.getConnection();
             conn.setAutoCommit(false);
             
-            PreparedStatement stmt = conn.prepareStatement(INSERT_USER);
-            stmt.setString(1, user.getUsername());
-            stmt.setString(2, user.getPassword());
-            stmt.setString(3, user.getEmail());
-            stmt.setString(4, user.getFullName());
-            stmt.setString(5, user.getRole());
-            
-            int rowsAffected = stmt.executeUpdate();
-            if (rowsAffected == 0) {
-                throw new SQLException("Creating user failed, no rows affected.");
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_USER)) {
+                stmt.setString(1, user.getUsername());
+                stmt.setString(2, user.getPassword());
+                stmt.setString(3, user.getEmail());
+                stmt.setString(4, user.getFullName());
+                stmt.setString(5, user.getRole());
+
+                int rowsAffected = stmt.executeUpdate();
+                if (rowsAffected == 0) {
+                    throw new SQLException("Creating user failed, no rows affected.");
+                }
             }
-            
+
             conn.commit();
         } catch (SQLException e) {
             if (conn != null) {
@@ -56,6 +63,16 @@ public class UserDAO {
         }
     }
 
+    public boolean emailExists(String email) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(CHECK_EMAIL_EXISTS)) {
+
+            stmt.setString(1, email);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next();
+        }
+    }
+
     public User getUserByUsername(String username) throws SQLException {
         String query = "SELECT * FROM users WHERE username = ?";
         try (Connection conn = DatabaseConnection.getConnection();
@@ -65,17 +82,7 @@ public class UserDAO {
             ResultSet rs = stmt.executeQuery();
             
             if (rs.next()) {
-                User user = new RegularUser();
-                user.setUsername(rs.getString("username"));
-                user.setPassword(rs.getString("password"));
-                user.setEmail(rs.getString("email"));
-                user.setName(rs.getString("full_name"));
-                try {
-    user.setRole(rs.getString("role"));
-} catch (SQLException e) {
-    user.setRole("regular"); // Default role if column doesn't exist
-}
-                return user;
+                return extractUserFromResultSet(rs);
             }
             return null;
         }
@@ -90,22 +97,33 @@ public class UserDAO {
              ResultSet rs = stmt.executeQuery(query)) {
             
             while (rs.next()) {
-                User user = new RegularUser();
-                user.setUsername(rs.getString("username"));
-                user.setPassword(rs.getString("password"));
-                user.setEmail(rs.getString("email"));
-                user.setName(rs.getString("full_name"));
-                try {
-    user.setRole(rs.getString("role"));
-} catch (SQLException e) {
-    user.setRole("regular"); // Default role if column doesn't exist
-}
-                users.add(user);
+                users.add(extractUserFromResultSet(rs));
             }
         }
         return users;
     }
     
+    // Up to limit users ordered by username, starting after the given one (null for the start)
+    public List<User> getUsersAfter(String afterUsername, int limit) throws SQLException {
+        List<User> users = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(afterUsername == null ? GET_USERS_FIRST : GET_USERS_AFTER)) {
+
+            int i = 1;
+            if (afterUsername != null) {
+                stmt.setString(i++, afterUsername);
+            }
+            stmt.setInt(i, limit);
+            ResultSet rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                users.add(extractUserFromResultSet(rs));
+            }
+        }
+        return users;
+    }
+
     public boolean isUserSaved(String username) throws SQLException {
         String query = "SELECT username FROM users WHERE username = ?";
         try (Connection conn = DatabaseConnection.getConnection();
@@ -131,4 +149,74 @@ public class UserDAO {
             stmt.executeUpdate();
         }
     }
-}
\ No newline at end of file
+
+    // Inserts new users and updates existing ones, committing once per batch
+    public void upsertUsers(List<User> users, int batchSize) throws SQLException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(UPSERT_USER)) {
+                int pending = 0;
+                for (User user : users) {
+                    stmt.setString(1, user.getUsername());
+                    stmt.setString(2, user.getPassword());
+                    stmt.setString(3, user.getEmail());
+                    stmt.setString(4, user.getFullName());
+                    stmt.setString(5, user.getRole());
+                    stmt.addBatch();
+
+                    if (++pending == batchSize) {
+                        stmt.executeBatch();
+                        conn.commit();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    stmt.executeBatch();
+                    conn.commit();
+                }
+            }
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+    }
+
+    // Inserts the user only if the username is not taken yet; an existing row is left untouched
+    static void ensureUser(Connection conn, User user) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(ENSURE_USER)) {
+            stmt.setString(1, user.getUsername());
+            stmt.setString(2, user.getPassword());
+            stmt.setString(3, user.getEmail());
+            stmt.setString(4, user.getFullName());
+            stmt.setString(5, user.getRole());
+            stmt.executeUpdate();
+        }
+    }
+
+    static User extractUserFromResultSet(ResultSet rs) throws SQLException {
+        User user = new RegularUser();
+        user.setUsername(rs.getString("username"));
+        user.setPassword(rs.getString("password"));
+        user.setEmail(rs.getString("email"));
+        user.setName(rs.getString("full_name"));
+        try {
+            user.setRole(rs.getString("role"));
+        } catch (SQLException e) {
+            user.setRole("regular"); // Default role if column doesn't exist
+        }
+        return user;
+    }
+}
@@ -0,0 +1,247 @@
+package service;
+
+import java.sql.*;
+import model.User;
+import model.Booking;
+import model.WaitlistEntry;
+import java.util.List;
+import java.util.ArrayList;
+import java.time.LocalDateTime;
+
+public class WaitlistDAO {
+    // WAITING -> PROMOTING when a cancelled seat is handed over -> PROMOTED once the booking exists.
+    // CANCELLED when the customer leaves the list, FAILED if the booking could not be created.
+    static final String WAITING = "WAITING";
+    static final String PROMOTING = "PROMOTING";
+    static final String PROMOTED = "PROMOTED";
+    static final String CANCELLED = "CANCELLED";
+    static final String FAILED = "FAILED";
+
+    private static final String INSERT_ENTRY = "INSERT INTO waitlist (flight_number, user_id, priority, status, created_at) VALUES (?, ?, ?, 'WAITING', ?)";
+    private static final String FIND_WAITING = "SELECT id FROM waitlist WHERE flight_number=? AND user_id=? AND status='WAITING'";
+    private static final String CANCEL_ENTRY = "UPDATE waitlist SET status='CANCELLED' WHERE id=? AND user_id=? AND status='WAITING'";
+    private static final String GET_ENTRIES_BY_USER = "SELECT * FROM waitlist WHERE user_id=? ORDER BY created_at DESC";
+    private static final String COUNT_WAITING = "SELECT COUNT(*) FROM waitlist WHERE flight_number=? AND status='WAITING'";
+    // Runs after the flight row is locked, which orders it against concurrent cancellations and joins
+    private static final String CLAIM_NEXT = "UPDATE waitlist SET status='PROMOTING' WHERE flight_number=? AND status='WAITING' "
+            + "ORDER BY priority DESC, id LIMIT 1";
+    private static final String GET_PROMOTING = "SELECT w.id, w.flight_number, w.user_id, w.priority, w.status, w.created_at, w.booking_id, "
+            + "u.username, u.password, u.email, u.full_name, u.role "
+            + "FROM waitlist w JOIN users u ON u.username = w.user_id "
+            + "WHERE w.status='PROMOTING' ORDER BY w.id LIMIT ?";
+    private static final String MARK_PROMOTED = "UPDATE waitlist SET status='PROMOTED', booking_id=? WHERE id=? AND status='PROMOTING'";
+    // Joining the list and handing a freed seat over both lock the flight row first
+    private static final String LOCK_FLIGHT_SEATS = "SELECT available_seats FROM flights WHERE flight_number=? FOR UPDATE";
+    private static final String MARK_FAILED = "UPDATE waitlist SET status='FAILED' WHERE id=? AND status='PROMOTING'";
+
+    // Adds the user to the back of the flight's list in their priority tier. Returns null if they
+    // are already waiting for that flight, or if it has a free seat and can simply be booked.
+    public WaitlistEntry addEntry(User user, String flightNumber, int priority) throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            // Same row lock as passSeatOn, so a seat freed while joining is either seen here or
+            // handed to this entry, never returned to the flight behind its back
+            Integer available = lockAvailableSeats(conn, flightNumber);
+            if (available == null || available > 0) {
+                conn.rollback();
+                return null;
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(FIND_WAITING)) {
+                stmt.setString(1, flightNumber);
+                stmt.setString(2, user.getUsername());
+                if (stmt.executeQuery().next()) {
+                    conn.rollback();
+                    return null;
+                }
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            WaitlistEntry entry;
+            try (PreparedStatement stmt = conn.prepareStatement(INSERT_ENTRY, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setString(1, flightNumber);
+                stmt.setString(2, user.getUsername());
+                stmt.setInt(3, priority);
+                stmt.setTimestamp(4, Timestamp.valueOf(now));
+                stmt.executeUpdate();
+
+                ResultSet keys = stmt.getGeneratedKeys();
+                long id = keys.next() ? keys.getLong(1) : 0;
+                entry = new WaitlistEntry(id, user.getUsername(), flightNumber, priority, WAITING, now, null);
+            }
+
+            conn.commit();
+            return entry;
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+    }
+
+    public boolean cancelEntry(long id, String username) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(CANCEL_ENTRY)) {
+
+            stmt.setLong(1, id);
+            stmt.setString(2, username);
+            return stmt.executeUpdate() == 1;
+        }
+    }
+
+    public List<WaitlistEntry> getEntriesByUser(String username) throws SQLException {
+        List<WaitlistEntry> entries = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(GET_ENTRIES_BY_USER)) {
+
+            stmt.setString(1, username);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                entries.add(extractEntryFromResultSet(rs));
+            }
+        }
+        return entries;
+    }
+
+    public int countWaiting(String flightNumber) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(COUNT_WAITING)) {
+
+            stmt.setString(1, flightNumber);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // Called inside the transaction that freed a seat: gives the seat to the next waiting customer
+    // if there is one, otherwise returns it to the flight. Returns true if it was handed over.
+    static boolean passSeatOn(Connection conn, String flightNumber) throws SQLException {
+        lockAvailableSeats(conn, flightNumber);
+        try (PreparedStatement stmt = conn.prepareStatement(CLAIM_NEXT)) {
+            stmt.setString(1, flightNumber);
+            if (stmt.executeUpdate() == 1) {
+                return true;
+            }
+        }
+        FlightDAO.releaseSeat(conn, flightNumber);
+        return false;
+    }
+
+    // Locks the flight's row until the transaction ends; null if there is no such flight
+    private static Integer lockAvailableSeats(Connection conn, String flightNumber) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(LOCK_FLIGHT_SEATS)) {
+            stmt.setString(1, flightNumber);
+            ResultSet rs = stmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : null;
+        }
+    }
+
+    // Entries holding a handed-over seat whose booking has not been written yet, with their users
+    List<PendingPromotion> getPendingPromotions(int limit) throws SQLException {
+        List<PendingPromotion> pending = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(GET_PROMOTING)) {
+
+            stmt.setInt(1, limit);
+            ResultSet rs = stmt.executeQuery();
+            while (rs.next()) {
+                pending.add(new PendingPromotion(extractEntryFromResultSet(rs), UserDAO.extractUserFromResultSet(rs)));
+            }
+        }
+        return pending;
+    }
+
+    // Writes the booking for a handed-over seat. The seat was already taken when the entry was
+    // claimed, so no seat count changes here. Returns false if another promoter got there first.
+    public boolean promote(WaitlistEntry entry, Booking booking) throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement stmt = conn.prepareStatement(MARK_PROMOTED)) {
+                stmt.setString(1, booking.getBookingId());
+                stmt.setLong(2, entry.getId());
+                if (stmt.executeUpdate() == 0) {
+                    conn.rollback();
+                    return false;
+                }
+            }
+            BookingDAO.insertBooking(conn, booking);
+
+            conn.commit();
+            return true;
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+    }
+
+    // Gives up on an entry whose booking cannot be created and passes its seat on.
+    // Returns true if the seat went back to the flight rather than to the next customer.
+    public boolean fail(WaitlistEntry entry) throws SQLException {
+        Connection conn = null;
+        try {
+            conn = DatabaseConnection.getConnection();
+            conn.setAutoCommit(false);
+
+            boolean released = false;
+            try (PreparedStatement stmt = conn.prepareStatement(MARK_FAILED)) {
+                stmt.setLong(1, entry.getId());
+                if (stmt.executeUpdate() == 1) {
+                    released = !passSeatOn(conn, entry.getFlightNumber());
+                }
+            }
+
+            conn.commit();
+            return released;
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback();
+            }
+            throw e;
+        } finally {
+            if (conn != null) {
+                conn.setAutoCommit(true);
+                conn.close();
+            }
+        }
+    }
+
+    private static WaitlistEntry extractEntryFromResultSet(ResultSet rs) throws SQLException {
+        return new WaitlistEntry(
+            rs.getLong("id"),
+            rs.getString("user_id"),
+            rs.getString("flight_number"),
+            rs.getInt("priority"),
+            rs.getString("status"),
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            rs.getString("booking_id")
+        );
+    }
+
+    static class PendingPromotion {
+        final WaitlistEntry entry;
+        final User user;
+
+        PendingPromotion(WaitlistEntry entry, User user) {
+            this.entry = entry;
+            this.user = user;
+        }
+    }
+}
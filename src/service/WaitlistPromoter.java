@@ -0,0 +1,112 @@
+package service;
+
+import model.Flight;
+import model.Booking;
+import model.WaitlistEntry;
+import java.util.List;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Background worker that writes the bookings for seats handed to waitlisted customers.
+ * A cancellation only marks the next entry in its own transaction and wakes this thread,
+ * so its latency does not depend on how many people are waiting. Entries left over from
+ * a crash or from another instance are picked up by a periodic poll.
+ */
+class WaitlistPromoter {
+    private static final int BATCH_SIZE = 100;
+    private static final long POLL_INTERVAL_MS = Long.getLong("waitlist.pollIntervalMs", 5_000L);
+
+    private final WaitlistDAO waitlistDAO;
+    private final FlightService flightService;
+    private final Consumer<Booking> onPromoted;
+    private final ScheduledExecutorService executor;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicBoolean wakeQueued = new AtomicBoolean();
+
+    WaitlistPromoter(WaitlistDAO waitlistDAO, FlightService flightService, Consumer<Booking> onPromoted) {
+        this.waitlistDAO = waitlistDAO;
+        this.flightService = flightService;
+        this.onPromoted = onPromoted;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "waitlist-promoter");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    void start() {
+        if (started.compareAndSet(false, true)) {
+            executor.scheduleWithFixedDelay(this::drain, 0, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Asks for a pass as soon as possible; wake-ups that arrive while one is queued are merged
+    void wake() {
+        start();
+        if (wakeQueued.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                wakeQueued.set(false);
+                drain();
+            });
+        }
+    }
+
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    // Only ever runs on the promoter thread
+    private void drain() {
+        try {
+            List<WaitlistDAO.PendingPromotion> batch;
+            do {
+                batch = waitlistDAO.getPendingPromotions(BATCH_SIZE);
+                for (WaitlistDAO.PendingPromotion pending : batch) {
+                    promote(pending);
+                }
+            } while (batch.size() == BATCH_SIZE);
+        } catch (SQLException e) {
+            // Left as PROMOTING; the next poll tries again
+            System.out.println("Error promoting waitlist entries: " + e.getMessage());
+        }
+    }
+
+    private void promote(WaitlistDAO.PendingPromotion pending) throws SQLException {
+        WaitlistEntry entry = pending.entry;
+        // A database error leaves the entry PROMOTING for the next poll
+        Flight flight = flightService.tryGetFlightByNumber(entry.getFlightNumber());
+        if (flight == null) {
+            // The flight is gone, so the booking can never be written; without this the entry
+            // would be picked up again on every poll
+            System.out.println("Waitlist entry " + entry.getId() + " failed: flight " + entry.getFlightNumber() + " no longer exists");
+            waitlistDAO.fail(entry);
+            return;
+        }
+
+        Booking booking = new Booking(pending.user, flight);
+        try {
+            if (waitlistDAO.promote(entry, booking)) {
+                onPromoted.accept(booking);
+            }
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // The booking can never be written, so the seat moves on instead of staying stuck
+            System.out.println("Waitlist entry " + entry.getId() + " could not be booked: " + e.getMessage());
+            Lock lock = flightService.bookingLock(flight.getFlightNumber());
+            lock.lock();
+            try {
+                if (waitlistDAO.fail(entry)) {
+                    flightService.recordSeatReleased(flight);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
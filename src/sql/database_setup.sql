@@ -24,7 +24,9 @@ CREATE TABLE IF NOT EXISTS flights (
     arrival_time DATETIME NOT NULL,
     total_seats INT NOT NULL,
     available_seats INT NOT NULL,
-    price DECIMAL(10,2) NOT NULL
+    price DECIMAL(10,2) NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
+    INDEX idx_flights_route (origin, destination, departure_time)
 );
 
 -- Bookings table
@@ -34,12 +36,65 @@ CREATE TABLE IF NOT EXISTS bookings (
     flight_number VARCHAR(20) NOT NULL,
     booking_date DATETIME NOT NULL,
     status VARCHAR(20) NOT NULL,
+    idempotency_key VARCHAR(64) NULL,
+    INDEX idx_bookings_user_date (user_id, booking_date),
+    INDEX idx_bookings_flight_status (flight_number, status),
+    UNIQUE INDEX uq_bookings_idempotency (user_id, idempotency_key),
+    INDEX idx_bookings_date (booking_date, booking_id),
     FOREIGN KEY (user_id) REFERENCES users(username),
     FOREIGN KEY (flight_number) REFERENCES flights(flight_number)
 );
 
+-- Customers waiting for a seat on a sold-out flight, served by priority and then in order of joining
+CREATE TABLE IF NOT EXISTS waitlist (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    flight_number VARCHAR(20) NOT NULL,
+    user_id VARCHAR(50) NOT NULL,
+    priority INT NOT NULL DEFAULT 0,
+    status VARCHAR(20) NOT NULL,
+    created_at DATETIME NOT NULL,
+    booking_id VARCHAR(50) NULL,
+    INDEX idx_waitlist_queue (flight_number, status, priority DESC, id),
+    INDEX idx_waitlist_user (user_id, created_at),
+    INDEX idx_waitlist_status (status),
+    FOREIGN KEY (user_id) REFERENCES users(username),
+    FOREIGN KEY (flight_number) REFERENCES flights(flight_number)
+);
+
+-- Recurring schedules; flights are created from them one date at a time as they are searched or booked
+CREATE TABLE IF NOT EXISTS flight_schedules (
+    flight_number VARCHAR(11) PRIMARY KEY,
+    airline VARCHAR(50) NOT NULL,
+    origin VARCHAR(50) NOT NULL,
+    destination VARCHAR(50) NOT NULL,
+    departure_time TIME NOT NULL,
+    arrival_time TIME NOT NULL,
+    -- Bit mask of operating days, Monday = 1, Tuesday = 2, ... Sunday = 64
+    days_of_week INT NOT NULL,
+    valid_from DATE NOT NULL,
+    valid_to DATE NOT NULL,
+    total_seats INT NOT NULL,
+    price DECIMAL(10,2) NOT NULL
+);
+
+-- Schema changes applied so far; SchemaMigrator applies anything newer at startup
+CREATE TABLE IF NOT EXISTS schema_version (
+    version INT PRIMARY KEY,
+    description VARCHAR(200) NOT NULL,
+    applied_at DATETIME NOT NULL
+);
+INSERT IGNORE INTO schema_version VALUES (1, 'Indexes for route search and booking lookups', NOW());
+INSERT IGNORE INTO schema_version VALUES (2, 'Row version on flights for optimistic locking', NOW());
+INSERT IGNORE INTO schema_version VALUES (3, 'Idempotency keys on bookings', NOW());
+INSERT IGNORE INTO schema_version VALUES (4, 'Waitlist for sold-out flights', NOW());
+INSERT IGNORE INTO schema_version VALUES (5, 'Index for paging through bookings by date', NOW());
+INSERT IGNORE INTO schema_version VALUES (6, 'Recurring flight schedules', NOW());
+
 -- Sample data insertion
 INSERT IGNORE INTO users VALUES ('admin', 'admin123', 'admin@example.com', 'Admin User', '1234567890', 'admin');
-INSERT IGNORE INTO flights VALUES
+INSERT IGNORE INTO flights (flight_number, airline, origin, destination, departure_time, arrival_time, total_seats, available_seats, price) VALUES
     ('FL100', 'EgyptAir', 'Alex.', 'Cairo', '2023-12-15 08:00:00', '2023-12-15 16:00:00', 200, 150, 500.00),
-    ('FL200', 'EgyptAir', 'Cairo', 'Alex.', '2023-12-16 10:00:00', '2023-12-16 12:00:00', 150, 100, 200.00);
\ No newline at end of file
+    ('FL200', 'EgyptAir', 'Cairo', 'Alex.', '2023-12-16 10:00:00', '2023-12-16 12:00:00', 150, 100, 200.00);
+-- Daily shuttle; its flights appear as FL300-yyyyMMdd when a date is searched or booked
+INSERT IGNORE INTO flight_schedules (flight_number, airline, origin, destination, departure_time, arrival_time, days_of_week, valid_from, valid_to, total_seats, price) VALUES
+    ('FL300', 'EgyptAir', 'Cairo', 'Alex.', '07:30:00', '08:30:00', 127, '2026-01-01', '2026-12-31', 150, 180.00);
\ No newline at end of file
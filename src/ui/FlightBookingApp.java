@@ -1,7 +1,16 @@
 package ui;
 
+import java.util.Set;
 import java.util.List;
 import java.util.Scanner;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.nio.file.InvalidPathException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.DayOfWeek;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
@@ -9,20 +18,37 @@ import java.time.format.DateTimeParseException;
 import model.User;
 import model.Flight;
 import model.Booking;
+import model.FlightSchedule;
 import service.AuthService;
 import service.FlightService;
 import service.BookingService;
+import service.Page;
+import service.FlightImporter;
+import service.FlightImportReport;
+import service.ApplicationContext;
 
 public class FlightBookingApp {
+    // Rows printed at a time in the admin lists
+    private static final int PAGE_SIZE = 50;
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
     private AuthService authService;
     private FlightService flightService;
     private BookingService bookingService;
+    private FlightImporter flightImporter;
     private User currentUser;
 
     public FlightBookingApp() {
-        authService = new AuthService();
-        flightService = new FlightService();
-        bookingService = new BookingService(flightService, authService.getUserDAO());
+        ApplicationContext context = ApplicationContext.getInstance();
+        authService = context.getAuthService();
+        flightService = context.getFlightService();
+        bookingService = context.getBookingService();
+        flightImporter = context.getFlightImporter();
+
+        // Schema changes are applied before this returns. Data loads in the background, and
+        // anything needed before it finishes is read from the database
+        context.warmUp().thenAccept(System.out::println);
     }
 
     public static void main(String[] args) {
@@ -92,11 +118,14 @@ public class FlightBookingApp {
     private void displayAdminMenu() {
         System.out.println("\n===== ADMIN MENU =====");
         System.out.println("1. Add New Flight");
-        System.out.println("2. View All Flights");
-        System.out.println("3. View All Bookings");
-        System.out.println("4. View All Users");
-        System.out.println("5. Change Password");
-        System.out.println("6. Logout");
+        System.out.println("2. Add Recurring Schedule");
+        System.out.println("3. Edit a Flight");
+        System.out.println("4. Import Flights from CSV");
+        System.out.println("5. View All Flights");
+        System.out.println("6. View All Bookings");
+        System.out.println("7. View All Users");
+        System.out.println("8. Change Password");
+        System.out.println("9. Logout");
         System.out.print("Enter your choice: ");
     }
 
@@ -112,18 +141,27 @@ public class FlightBookingApp {
                     addFlight();
                     break;
                 case 2:
-                    viewAllFlights();
+                    addSchedule();
                     break;
                 case 3:
-                    viewAllBookings();
+                    editFlight();
                     break;
                 case 4:
-                    viewAllUsers();
+                    importFlights();
                     break;
                 case 5:
-                    changePassword();
+                    viewAllFlights();
                     break;
                 case 6:
+                    viewAllBookings();
+                    break;
+                case 7:
+                    viewAllUsers();
+                    break;
+                case 8:
+                    changePassword();
+                    break;
+                case 9:
                     logout();
                     break;
                 default:
@@ -276,47 +314,214 @@ public class FlightBookingApp {
         }
     }
 
+    private void addSchedule() {
+        System.out.println("\n===== ADD RECURRING SCHEDULE =====");
+        System.out.print("Flight Number (up to " + FlightSchedule.MAX_FLIGHT_NUMBER_LENGTH + " characters): ");
+        String flightNumber = scanner.nextLine().trim();
+        System.out.print("Airline: ");
+        String airline = scanner.nextLine().trim();
+        System.out.print("Origin: ");
+        String origin = scanner.nextLine().trim();
+        System.out.print("Destination: ");
+        String destination = scanner.nextLine().trim();
+        if (flightNumber.isEmpty() || airline.isEmpty() || origin.isEmpty() || destination.isEmpty()) {
+            System.out.println("Flight number, airline, origin and destination cannot be empty.");
+            return;
+        }
+
+        LocalTime departureTime;
+        LocalTime arrivalTime;
+        try {
+            System.out.print("Departure Time (HH:mm): ");
+            departureTime = LocalTime.parse(scanner.nextLine().trim(), TIME_FORMAT);
+            System.out.print("Arrival Time (HH:mm, earlier than departure if it lands the next day): ");
+            arrivalTime = LocalTime.parse(scanner.nextLine().trim(), TIME_FORMAT);
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid time format. Please use HH:mm");
+            return;
+        }
+
+        System.out.print("Days of Week (e.g. Mon,Wed,Fri): ");
+        Set<DayOfWeek> days = FlightSchedule.parseDays(scanner.nextLine());
+        if (days == null || days.isEmpty()) {
+            System.out.println("Please list days such as Mon,Wed,Fri.");
+            return;
+        }
+
+        LocalDate validFrom = getDateTimeInput("First Day (yyyy-MM-dd): ", true).toLocalDate();
+        LocalDate validTo = getDateTimeInput("Last Day (yyyy-MM-dd): ", true).toLocalDate();
+
+        System.out.print("Total Seats: ");
+        int totalSeats = getIntInput();
+        System.out.print("Price: $");
+        double price = getDoubleInput();
+
+        FlightSchedule schedule = new FlightSchedule(flightNumber, airline, origin, destination,
+                departureTime, arrivalTime, days, validFrom, validTo, totalSeats, price);
+        if (flightService.addSchedule(schedule)) {
+            System.out.println("Schedule added. Its flights can be searched and booked by date.");
+        } else {
+            System.out.println("Error adding schedule. Check the values above; the flight number may already be in use.");
+        }
+    }
+
+    private void editFlight() {
+        System.out.println("\n===== EDIT FLIGHT =====");
+        System.out.print("Flight Number: ");
+        String flightNumber = scanner.nextLine().trim();
+        Flight current = flightService.getFlightByNumber(flightNumber);
+        if (current == null) {
+            System.out.println("Flight not found.");
+            return;
+        }
+        System.out.println("Leave a field blank to keep its current value.");
+
+        String airline = getInputOrKeep("Airline", current.getAirline());
+        String origin = getInputOrKeep("Origin", current.getOrigin());
+        String destination = getInputOrKeep("Destination", current.getDestination());
+        LocalDateTime departureTime;
+        LocalDateTime arrivalTime;
+        int totalSeats;
+        double price;
+        try {
+            departureTime = LocalDateTime.parse(getInputOrKeep("Departure Time (yyyy-MM-dd HH:mm)",
+                    current.getDepartureTime().format(DATE_TIME_FORMAT)), DATE_TIME_FORMAT);
+            arrivalTime = LocalDateTime.parse(getInputOrKeep("Arrival Time (yyyy-MM-dd HH:mm)",
+                    current.getArrivalTime().format(DATE_TIME_FORMAT)), DATE_TIME_FORMAT);
+            totalSeats = Integer.parseInt(getInputOrKeep("Total Seats", String.valueOf(current.getTotalSeats())));
+            price = Double.parseDouble(getInputOrKeep("Price", String.valueOf(current.getPrice())));
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date format. Please use yyyy-MM-dd HH:mm");
+            return;
+        } catch (NumberFormatException e) {
+            System.out.println("Please enter a valid number.");
+            return;
+        }
+
+        if (!departureTime.isBefore(arrivalTime)) {
+            System.out.println("Departure time must be before arrival time.");
+            return;
+        }
+        if (totalSeats <= 0 || price <= 0) {
+            System.out.println("Total seats and price must be positive numbers.");
+            return;
+        }
+        int booked = current.getTotalSeats() - current.getAvailableSeats();
+        if (totalSeats < booked) {
+            System.out.println("Total seats cannot be less than the " + booked + " seats already taken.");
+            return;
+        }
+
+        Flight edit = new Flight(flightNumber, airline, origin, destination, departureTime, arrivalTime, totalSeats, price);
+        // Seats already taken stay taken; a change in capacity only moves the free seats
+        edit.setAvailableSeats(totalSeats - booked);
+        edit.setVersion(current.getVersion());
+        if (flightService.updateFlight(flightNumber, edit)) {
+            System.out.println("Flight updated successfully.");
+        } else {
+            System.out.println("Error updating flight.");
+        }
+    }
+
+    private String getInputOrKeep(String prompt, String currentValue) {
+        System.out.print(prompt + " [" + currentValue + "]: ");
+        String input = scanner.nextLine().trim();
+        return input.isEmpty() ? currentValue : input;
+    }
+
+    private void importFlights() {
+        System.out.println("\n===== IMPORT FLIGHTS =====");
+        System.out.println("Columns: " + FlightImporter.CSV_HEADER);
+        System.out.print("CSV file: ");
+        Path file;
+        try {
+            file = Paths.get(scanner.nextLine().trim());
+        } catch (InvalidPathException e) {
+            System.out.println("Invalid file name.");
+            return;
+        }
+
+        FlightImportReport report;
+        try {
+            report = flightImporter.importFlights(file, (rowsRead, imported, rejected) ->
+                    System.out.print("\r" + rowsRead + " rows read, " + imported + " imported, " + rejected + " rejected"));
+            System.out.println();
+        } catch (IOException | SQLException e) {
+            System.out.println();
+            System.out.println("Import failed: " + e.getMessage() + ". Rows imported before the failure were kept.");
+            return;
+        }
+
+        System.out.println(report.getImported() + " flights imported, " + report.getRejected() + " rows rejected.");
+        for (FlightImportReport.RowError error : report.getErrors()) {
+            System.out.println(error);
+        }
+    }
+
     private void viewAllFlights() {
         System.out.println("\n===== ALL FLIGHTS =====");
-        List<Flight> flights = flightService.getAllFlights();
+        Page<Flight> page = flightService.getFlightsPage(null, PAGE_SIZE);
 
-        if (flights.isEmpty()) {
+        if (page.getItems().isEmpty()) {
             System.out.println("No flights available.");
-        } else {
-            System.out.println("Flight# | Airline         | Origin          | Destination     | Departure            | Arrival              | Seats | Price");
-            System.out.println("--------------------------------------------------------------------------------------------------------------");
-            for (Flight flight : flights) {
+            return;
+        }
+        System.out.println("Flight# | Airline         | Origin          | Destination     | Departure            | Arrival              | Seats | Price");
+        System.out.println("--------------------------------------------------------------------------------------------------------------");
+        while (true) {
+            for (Flight flight : page.getItems()) {
                 System.out.println(flight);
             }
+            if (!page.hasMore() || !askForMore()) {
+                return;
+            }
+            page = flightService.getFlightsPage(page.getNextCursor(), PAGE_SIZE);
         }
     }
 
     private void viewAllBookings() {
         System.out.println("\n===== ALL BOOKINGS =====");
-        List<Booking> bookings = bookingService.getAllBookings();
+        Page<Booking> page = bookingService.getBookingsPage(null, PAGE_SIZE);
 
-        if (bookings.isEmpty()) {
+        if (page.getItems().isEmpty()) {
             System.out.println("No bookings available.");
-        } else {
-            for (Booking booking : bookings) {
+            return;
+        }
+        while (true) {
+            for (Booking booking : page.getItems()) {
                 System.out.println(booking);
             }
+            if (!page.hasMore() || !askForMore()) {
+                return;
+            }
+            page = bookingService.getBookingsPage(page.getNextCursor(), PAGE_SIZE);
         }
     }
 
     private void viewAllUsers() {
         System.out.println("\n===== ALL USERS =====");
-        List<User> users = authService.getAllUsers();
+        Page<User> page = authService.getUsersPage(null, PAGE_SIZE);
 
-        if (users.isEmpty()) {
+        if (page.getItems().isEmpty()) {
             System.out.println("No users available.");
-        } else {
-            for (User user : users) {
+            return;
+        }
+        while (true) {
+            for (User user : page.getItems()) {
                 System.out.println(user);
             }
+            if (!page.hasMore() || !askForMore()) {
+                return;
+            }
+            page = authService.getUsersPage(page.getNextCursor(), PAGE_SIZE);
         }
     }
 
+    private boolean askForMore() {
+        System.out.print("Press Enter for more, or Q to stop: ");
+        return !scanner.nextLine().trim().equalsIgnoreCase("q");
+    }
+
     private void changePassword() {
         System.out.println("\n===== CHANGE PASSWORD =====");
         System.out.print("Enter current password: ");
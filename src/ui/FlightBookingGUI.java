@@ -2,20 +2,37 @@ package ui;
 
 import java.awt.*;
 import javax.swing.*;
+import java.util.Map;
+import java.util.Set;
 import java.util.List;
+import java.util.UUID;
+import java.util.HashMap;
+import java.io.File;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.awt.event.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.DayOfWeek;
 import java.time.LocalDateTime;
 import java.util.stream.Collectors;
 import javax.swing.border.EmptyBorder;
+import javax.swing.table.DefaultTableModel;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;import java.time.format.DateTimeParseException;
 
 import model.User;
 import model.Flight;
 import model.Booking;
+import model.WaitlistEntry;
+import model.FlightSchedule;
 import service.AuthService;
 import service.FlightService;
 import service.BookingService;
+import service.Page;
+import service.FlightImporter;
+import service.FlightImportReport;
+import service.ApplicationContext;
 
 public class FlightBookingGUI {
     // Colors
@@ -31,15 +48,19 @@ public class FlightBookingGUI {
     private static final Font BUTTON_FONT = new Font("Segoe UI", Font.PLAIN, 14);
     private static final Font LABEL_FONT = new Font("Segoe UI", Font.PLAIN, 14);
     private static final Font TEXT_FONT = new Font("Segoe UI", Font.PLAIN, 14);
+    // Rows fetched per page in the admin lists
+    private static final int ADMIN_PAGE_SIZE = 100;
 
     private AuthService authService;
     private FlightService flightService;
     private BookingService bookingService;
+    private FlightImporter flightImporter;
     private User currentUser;
 
     private JFrame frame;
     private CardLayout cardLayout;
     private JPanel cardPanel;
+    private JLabel startupLabel;
 
     // Card names
     private static final String MAIN_MENU = "MAIN_MENU";
@@ -47,13 +68,43 @@ public class FlightBookingGUI {
     private static final String REGISTER = "REGISTER";
     private static final String USER_MENU = "USER_MENU";
     private static final String ADMIN_MENU = "ADMIN_MENU";
+    private static final String STARTUP = "STARTUP";
 
     public FlightBookingGUI() {
-        authService = new AuthService();
-        flightService = new FlightService();
-        bookingService = new BookingService(flightService, authService.getUserDAO());
+        ApplicationContext context = ApplicationContext.getInstance();
+        authService = context.getAuthService();
+        flightService = context.getFlightService();
+        bookingService = context.getBookingService();
+        flightImporter = context.getFlightImporter();
 
         initializeGUI();
+        start(context);
+    }
+
+    // The window opens on a startup card while schema changes are applied on a worker thread,
+    // which may wait for another instance holding the migration lock. The menus appear once the
+    // schema is current; users, flights and bookings keep loading in the background.
+    private void start(ApplicationContext context) {
+        SwingWorker<String, String> worker = new SwingWorker<String, String>() {
+            @Override
+            protected String doInBackground() {
+                publish("Updating database schema...");
+                String schema = context.migrateSchema();
+                context.warmUp().thenAccept(System.out::println);
+                return schema;
+            }
+
+            @Override
+            protected void process(List<String> updates) {
+                startupLabel.setText(updates.get(updates.size() - 1));
+            }
+
+            @Override
+            protected void done() {
+                showMainMenu();
+            }
+        };
+        worker.execute();
     }
 
     private void initializeGUI() {
@@ -92,9 +143,36 @@ public class FlightBookingGUI {
         cardPanel.add(createRegisterPanel(), REGISTER);
         cardPanel.add(createUserMenuPanel(), USER_MENU);
         cardPanel.add(createAdminMenuPanel(), ADMIN_MENU);
+        cardPanel.add(createStartupPanel(), STARTUP);
 
         frame.add(cardPanel);
-        showMainMenu();
+        cardLayout.show(cardPanel, STARTUP);
+        frame.setVisible(true);
+    }
+
+    private JPanel createStartupPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(Color.WHITE);
+        panel.setBorder(new EmptyBorder(40, 40, 40, 40));
+
+        JLabel titleLabel = new JLabel("Flight Booking System", JLabel.CENTER);
+        titleLabel.setFont(TITLE_FONT);
+        titleLabel.setForeground(PRIMARY_COLOR);
+        titleLabel.setBorder(new EmptyBorder(0, 0, 40, 0));
+        panel.add(titleLabel, BorderLayout.NORTH);
+
+        JPanel progressPanel = new JPanel(new BorderLayout(10, 10));
+        progressPanel.setBackground(Color.WHITE);
+        progressPanel.setBorder(new EmptyBorder(20, 150, 20, 150));
+        startupLabel = new JLabel("Starting...", JLabel.CENTER);
+        startupLabel.setFont(LABEL_FONT);
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressPanel.add(startupLabel, BorderLayout.NORTH);
+        progressPanel.add(progressBar, BorderLayout.CENTER);
+        panel.add(progressPanel, BorderLayout.CENTER);
+
+        return panel;
     }
 
     private JPanel createMainMenuPanel() {
@@ -313,7 +391,7 @@ public class FlightBookingGUI {
                 JOptionPane.showMessageDialog(frame, "Registration successful. Please login.", "Success", JOptionPane.INFORMATION_MESSAGE);
                 showLogin();
             } else {
-                JOptionPane.showMessageDialog(frame, "Registration failed. Username may already exist.", "Registration Error", JOptionPane.ERROR_MESSAGE);
+                JOptionPane.showMessageDialog(frame, "Registration failed. Username or email may already be in use.", "Registration Error", JOptionPane.ERROR_MESSAGE);
             }
         });
 
@@ -407,6 +485,12 @@ public class FlightBookingGUI {
         JButton addFlightButton = createStyledButton("Add New Flight");
         addFlightButton.addActionListener(e -> showAddFlightPanel());
 
+        JButton addScheduleButton = createStyledButton("Add Recurring Schedule");
+        addScheduleButton.addActionListener(e -> showAddScheduleDialog());
+
+        JButton importFlightsButton = createStyledButton("Import Flights (CSV)");
+        importFlightsButton.addActionListener(e -> importFlights());
+
         JButton viewFlightsButton = createStyledButton("View All Flights");
         viewFlightsButton.addActionListener(e -> showAllFlightsPanel());
 
@@ -428,6 +512,8 @@ public class FlightBookingGUI {
         });
 
         buttonsPanel.add(addFlightButton);
+        buttonsPanel.add(addScheduleButton);
+        buttonsPanel.add(importFlightsButton);
         buttonsPanel.add(viewFlightsButton);
         buttonsPanel.add(viewBookingsButton);
         buttonsPanel.add(viewUsersButton);
@@ -508,14 +594,18 @@ public class FlightBookingGUI {
             JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 20));
             buttonPanel.setBackground(Color.WHITE);
 
+            // Keys of attempts that failed, so retrying one cannot book twice if it did go through
+            Map<String, String> retryKeys = new HashMap<>();
             JButton bookButton = createStyledButton("Book Selected Flight");
             bookButton.addActionListener(e -> {
                 int selectedRow = flightTable.getSelectedRow();
                 if (selectedRow >= 0) {
                     Flight selectedFlight = flights.get(selectedRow);
-                    Booking booking = bookingService.createBooking(currentUser, selectedFlight);
+                    Booking booking = submitBooking(selectedFlight, retryKeys);
                     if (booking != null) {
                         JOptionPane.showMessageDialog(frame, "Booking successful! Your booking ID is: " + booking.getBookingId(), "Success", JOptionPane.INFORMATION_MESSAGE);
+                    } else if (selectedFlight.getAvailableSeats() <= 0) {
+                        offerWaitlist(selectedFlight);
                     } else {
                         JOptionPane.showMessageDialog(frame, "Booking failed. The flight might be full.", "Error", JOptionPane.ERROR_MESSAGE);
                     }
@@ -594,14 +684,17 @@ public class FlightBookingGUI {
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 20, 20));
         buttonPanel.setBackground(Color.WHITE);
 
+        Map<String, String> retryKeys = new HashMap<>();
         JButton bookButton = createStyledButton("Book Flight");
         bookButton.addActionListener(e -> {
             String flightNumber = flightNumberField.getText();
             Flight flight = flightService.getFlightByNumber(flightNumber);
             if (flight != null) {
-                Booking booking = bookingService.createBooking(currentUser, flight);
+                Booking booking = submitBooking(flight, retryKeys);
                 if (booking != null) {
                     JOptionPane.showMessageDialog(frame, "Booking successful! Your booking ID is: " + booking.getBookingId(), "Success", JOptionPane.INFORMATION_MESSAGE);
+                } else if (flight.getAvailableSeats() <= 0) {
+                    offerWaitlist(flight);
                 } else {
                     JOptionPane.showMessageDialog(frame, "Booking failed. The flight might be full.", "Error", JOptionPane.ERROR_MESSAGE);
                 }
@@ -1036,27 +1129,16 @@ public class FlightBookingGUI {
         titleLabel.setBorder(new EmptyBorder(0, 0, 20, 0));
         panel.add(titleLabel, BorderLayout.NORTH);
 
-        List<Flight> flights = flightService.getAllFlights();
+        Page<Flight> firstPage = flightService.getFlightsPage(null, ADMIN_PAGE_SIZE);
 
-        if (flights.isEmpty()) {
+        if (firstPage.getItems().isEmpty()) {
             panel.add(new JLabel("No flights available.", JLabel.CENTER), BorderLayout.CENTER);
         } else {
             String[] columnNames = {"Flight#", "Airline", "Origin", "Destination", "Departure", "Arrival", "Seats", "Price"};
-            Object[][] data = new Object[flights.size()][8];
-
-            for (int i = 0; i < flights.size(); i++) {
-                Flight flight = flights.get(i);
-                data[i][0] = flight.getFlightNumber();
-                data[i][1] = flight.getAirline();
-                data[i][2] = flight.getOrigin();
-                data[i][3] = flight.getDestination();
-                data[i][4] = flight.getDepartureTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-                data[i][5] = flight.getArrivalTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-                data[i][6] = flight.getAvailableSeats();
-                data[i][7] = "$" + flight.getPrice();
-            }
+            DefaultTableModel model = new DefaultTableModel(columnNames, 0);
+            addFlightRows(model, firstPage.getItems());
 
-            JTable flightsTable = new JTable(data, columnNames);
+            JTable flightsTable = new JTable(model);
             flightsTable.setRowHeight(30);
             flightsTable.setShowGrid(true);
             flightsTable.setGridColor(new Color(230, 230, 230));
@@ -1071,6 +1153,28 @@ public class FlightBookingGUI {
             buttonPanel.setBackground(Color.WHITE);
             buttonPanel.setBorder(new EmptyBorder(20, 0, 0, 0));
 
+            AtomicReference<String> cursor = new AtomicReference<>(firstPage.getNextCursor());
+            JButton loadMoreButton = createStyledButton("Load More");
+            loadMoreButton.setEnabled(firstPage.hasMore());
+            loadMoreButton.addActionListener(e -> {
+                Page<Flight> page = flightService.getFlightsPage(cursor.get(), ADMIN_PAGE_SIZE);
+                addFlightRows(model, page.getItems());
+                cursor.set(page.getNextCursor());
+                loadMoreButton.setEnabled(page.hasMore());
+            });
+            buttonPanel.add(loadMoreButton);
+
+            JButton editButton = createStyledButton("Edit Selected");
+            editButton.addActionListener(e -> {
+                int selectedRow = flightsTable.getSelectedRow();
+                if (selectedRow >= 0) {
+                    showEditFlightDialog((String) model.getValueAt(selectedRow, 0));
+                } else {
+                    JOptionPane.showMessageDialog(frame, "Please select a flight to edit", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            });
+            buttonPanel.add(editButton);
+
             JButton backButton = createStyledButton("Back");
             backButton.setBackground(SECONDARY_COLOR);
             backButton.setForeground(TEXT_COLOR);
@@ -1083,6 +1187,174 @@ public class FlightBookingGUI {
         cardLayout.show(cardPanel, "ALL_FLIGHTS");
     }
 
+    private void addFlightRows(DefaultTableModel model, List<Flight> flights) {
+        for (Flight flight : flights) {
+            model.addRow(new Object[] {
+                flight.getFlightNumber(),
+                flight.getAirline(),
+                flight.getOrigin(),
+                flight.getDestination(),
+                flight.getDepartureTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")),
+                flight.getArrivalTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")),
+                flight.getAvailableSeats(),
+                "$" + flight.getPrice()
+            });
+        }
+    }
+
+    // A schedule's flights are not created here; each date's flight appears in searches and is
+    // stored when it is first booked
+    private void showAddScheduleDialog() {
+        JTextField flightNumberField = new JTextField();
+        JTextField airlineField = new JTextField();
+        JTextField originField = new JTextField();
+        JTextField destinationField = new JTextField();
+        JTextField departureField = new JTextField("09:00");
+        JTextField arrivalField = new JTextField("11:00");
+        JTextField daysField = new JTextField("Mon,Wed,Fri");
+        JTextField validFromField = new JTextField(LocalDate.now().toString());
+        JTextField validToField = new JTextField(LocalDate.now().plusMonths(3).toString());
+        JTextField seatsField = new JTextField();
+        JTextField priceField = new JTextField();
+
+        JPanel form = new JPanel(new GridLayout(0, 2, 10, 10));
+        form.add(new JLabel("Flight Number (max " + FlightSchedule.MAX_FLIGHT_NUMBER_LENGTH + "):"));
+        form.add(flightNumberField);
+        form.add(new JLabel("Airline:"));
+        form.add(airlineField);
+        form.add(new JLabel("Origin:"));
+        form.add(originField);
+        form.add(new JLabel("Destination:"));
+        form.add(destinationField);
+        form.add(new JLabel("Departure (HH:mm):"));
+        form.add(departureField);
+        form.add(new JLabel("Arrival (HH:mm):"));
+        form.add(arrivalField);
+        form.add(new JLabel("Days of Week:"));
+        form.add(daysField);
+        form.add(new JLabel("First Day (yyyy-MM-dd):"));
+        form.add(validFromField);
+        form.add(new JLabel("Last Day (yyyy-MM-dd):"));
+        form.add(validToField);
+        form.add(new JLabel("Total Seats:"));
+        form.add(seatsField);
+        form.add(new JLabel("Price:"));
+        form.add(priceField);
+
+        int choice = JOptionPane.showConfirmDialog(frame, form, "Add Recurring Schedule",
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        Set<DayOfWeek> days = FlightSchedule.parseDays(daysField.getText());
+        if (days == null || days.isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "Please list days such as Mon,Wed,Fri", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        FlightSchedule schedule;
+        try {
+            DateTimeFormatter timeFormat = DateTimeFormatter.ofPattern("HH:mm");
+            schedule = new FlightSchedule(flightNumberField.getText().trim(), airlineField.getText().trim(),
+                    originField.getText().trim(), destinationField.getText().trim(),
+                    LocalTime.parse(departureField.getText().trim(), timeFormat),
+                    LocalTime.parse(arrivalField.getText().trim(), timeFormat), days,
+                    LocalDate.parse(validFromField.getText().trim()), LocalDate.parse(validToField.getText().trim()),
+                    Integer.parseInt(seatsField.getText().trim()), Double.parseDouble(priceField.getText().trim()));
+        } catch (DateTimeParseException | NumberFormatException ex) {
+            JOptionPane.showMessageDialog(frame, "Invalid input format", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (schedule.getAirline().isEmpty() || schedule.getOrigin().isEmpty() || schedule.getDestination().isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "All fields are required", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        if (flightService.addSchedule(schedule)) {
+            JOptionPane.showMessageDialog(frame, "Schedule added successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
+        } else {
+            JOptionPane.showMessageDialog(frame, "Failed to add schedule. Check the values; the flight number may already be in use.",
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    // Edits the flight as currently cached; seats already taken stay taken when the capacity changes
+    private void showEditFlightDialog(String flightNumber) {
+        Flight current = flightService.getFlightByNumber(flightNumber);
+        if (current == null) {
+            JOptionPane.showMessageDialog(frame, "Flight not found", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        JTextField airlineField = new JTextField(current.getAirline());
+        JTextField originField = new JTextField(current.getOrigin());
+        JTextField destinationField = new JTextField(current.getDestination());
+        JTextField departureField = new JTextField(current.getDepartureTime().format(formatter));
+        JTextField arrivalField = new JTextField(current.getArrivalTime().format(formatter));
+        JTextField seatsField = new JTextField(String.valueOf(current.getTotalSeats()));
+        JTextField priceField = new JTextField(String.valueOf(current.getPrice()));
+
+        JPanel form = new JPanel(new GridLayout(0, 2, 10, 10));
+        form.add(new JLabel("Airline:"));
+        form.add(airlineField);
+        form.add(new JLabel("Origin:"));
+        form.add(originField);
+        form.add(new JLabel("Destination:"));
+        form.add(destinationField);
+        form.add(new JLabel("Departure (yyyy-MM-dd HH:mm):"));
+        form.add(departureField);
+        form.add(new JLabel("Arrival (yyyy-MM-dd HH:mm):"));
+        form.add(arrivalField);
+        form.add(new JLabel("Total Seats:"));
+        form.add(seatsField);
+        form.add(new JLabel("Price:"));
+        form.add(priceField);
+
+        int choice = JOptionPane.showConfirmDialog(frame, form, "Edit Flight " + flightNumber,
+                JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (choice != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        Flight edit;
+        try {
+            LocalDateTime departure = LocalDateTime.parse(departureField.getText().trim(), formatter);
+            LocalDateTime arrival = LocalDateTime.parse(arrivalField.getText().trim(), formatter);
+            int seats = Integer.parseInt(seatsField.getText().trim());
+            double price = Double.parseDouble(priceField.getText().trim());
+            edit = new Flight(flightNumber, airlineField.getText().trim(), originField.getText().trim(),
+                    destinationField.getText().trim(), departure, arrival, seats, price);
+        } catch (DateTimeParseException | NumberFormatException ex) {
+            JOptionPane.showMessageDialog(frame, "Invalid input format", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        int booked = current.getTotalSeats() - current.getAvailableSeats();
+        if (edit.getAirline().isEmpty() || edit.getOrigin().isEmpty() || edit.getDestination().isEmpty()) {
+            JOptionPane.showMessageDialog(frame, "All fields are required", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (!edit.getDepartureTime().isBefore(edit.getArrivalTime())) {
+            JOptionPane.showMessageDialog(frame, "Departure time must be before arrival time", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (edit.getTotalSeats() < Math.max(1, booked) || edit.getPrice() <= 0) {
+            JOptionPane.showMessageDialog(frame, "Total seats must cover the " + booked + " seats already taken and price must be positive",
+                    "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+
+        edit.setAvailableSeats(edit.getTotalSeats() - booked);
+        edit.setVersion(current.getVersion());
+        if (flightService.updateFlight(flightNumber, edit)) {
+            JOptionPane.showMessageDialog(frame, "Flight updated successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
+            showAllFlightsPanel();
+        } else {
+            JOptionPane.showMessageDialog(frame, "Failed to update flight", "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     private void showAllBookingsPanel() {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBackground(Color.WHITE);
@@ -1095,9 +1367,9 @@ public class FlightBookingGUI {
         titleLabel.setBorder(new EmptyBorder(0, 0, 20, 0));
         panel.add(titleLabel, BorderLayout.NORTH);
 
-        List<Booking> bookings = bookingService.getAllBookings();
+        Page<Booking> firstPage = bookingService.getBookingsPage(null, ADMIN_PAGE_SIZE);
 
-        if (bookings.isEmpty()) {
+        if (firstPage.getItems().isEmpty()) {
             panel.add(new JLabel("No bookings found.", JLabel.CENTER), BorderLayout.CENTER);
             
             JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
@@ -1112,23 +1384,10 @@ public class FlightBookingGUI {
             panel.add(buttonPanel, BorderLayout.SOUTH);
         } else {
             String[] columnNames = {"Booking ID", "User", "Flight#", "Airline", "Origin", "Destination", "Departure", "Status"};
-            Object[][] data = new Object[bookings.size()][8];
+            DefaultTableModel model = new DefaultTableModel(columnNames, 0);
+            addBookingRows(model, firstPage.getItems());
 
-            for (int i = 0; i < bookings.size(); i++) {
-                Booking booking = bookings.get(i);
-                Flight flight = booking.getFlight();
-                User user = booking.getUser();
-                data[i][0] = booking.getBookingId();
-                data[i][1] = user.getUsername();
-                data[i][2] = flight.getFlightNumber();
-                data[i][3] = flight.getAirline();
-                data[i][4] = flight.getOrigin();
-                data[i][5] = flight.getDestination();
-                data[i][6] = flight.getDepartureTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
-                data[i][7] = booking.getStatus();
-            }
-
-            JTable bookingsTable = new JTable(data, columnNames);
+            JTable bookingsTable = new JTable(model);
             bookingsTable.setRowHeight(30);
             bookingsTable.setShowGrid(true);
             bookingsTable.setGridColor(new Color(230, 230, 230));
@@ -1143,6 +1402,18 @@ public class FlightBookingGUI {
             buttonPanel.setBackground(Color.WHITE);
             buttonPanel.setBorder(new EmptyBorder(20, 0, 0, 0));
 
+            // Later pages are fetched only when asked for
+            AtomicReference<String> cursor = new AtomicReference<>(firstPage.getNextCursor());
+            JButton loadMoreButton = createStyledButton("Load More");
+            loadMoreButton.setEnabled(firstPage.hasMore());
+            loadMoreButton.addActionListener(e -> {
+                Page<Booking> page = bookingService.getBookingsPage(cursor.get(), ADMIN_PAGE_SIZE);
+                addBookingRows(model, page.getItems());
+                cursor.set(page.getNextCursor());
+                loadMoreButton.setEnabled(page.hasMore());
+            });
+            buttonPanel.add(loadMoreButton);
+
             JButton backButton = createStyledButton("Back");
             backButton.setBackground(SECONDARY_COLOR);
             backButton.setForeground(TEXT_COLOR);
@@ -1155,6 +1426,22 @@ public class FlightBookingGUI {
         cardLayout.show(cardPanel, "ALL_BOOKINGS");
     }
 
+    private void addBookingRows(DefaultTableModel model, List<Booking> bookings) {
+        for (Booking booking : bookings) {
+            Flight flight = booking.getFlight();
+            model.addRow(new Object[] {
+                booking.getBookingId(),
+                booking.getUser().getUsername(),
+                flight.getFlightNumber(),
+                flight.getAirline(),
+                flight.getOrigin(),
+                flight.getDestination(),
+                flight.getDepartureTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")),
+                booking.getStatus()
+            });
+        }
+    }
+
     private void showAllUsersPanel() {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBackground(Color.WHITE);
@@ -1167,23 +1454,16 @@ public class FlightBookingGUI {
         titleLabel.setBorder(new EmptyBorder(0, 0, 20, 0));
         panel.add(titleLabel, BorderLayout.NORTH);
 
-        List<User> users = authService.getAllUsers();
+        Page<User> firstPage = authService.getUsersPage(null, ADMIN_PAGE_SIZE);
 
-        if (users.isEmpty()) {
+        if (firstPage.getItems().isEmpty()) {
             panel.add(new JLabel("No users found.", JLabel.CENTER), BorderLayout.CENTER);
         } else {
             String[] columnNames = {"Username", "Full Name", "Email", "Role"};
-            Object[][] data = new Object[users.size()][4];
-
-            for (int i = 0; i < users.size(); i++) {
-                User user = users.get(i);
-                data[i][0] = user.getUsername();
-                data[i][1] = user.getFullName();
-                data[i][2] = user.getEmail();
-                data[i][3] = user.getRole();
-            }
+            DefaultTableModel model = new DefaultTableModel(columnNames, 0);
+            addUserRows(model, firstPage.getItems());
 
-            JTable usersTable = new JTable(data, columnNames);
+            JTable usersTable = new JTable(model);
             usersTable.setRowHeight(30);
             usersTable.setShowGrid(true);
             usersTable.setGridColor(new Color(230, 230, 230));
@@ -1198,6 +1478,17 @@ public class FlightBookingGUI {
             buttonPanel.setBackground(Color.WHITE);
             buttonPanel.setBorder(new EmptyBorder(20, 0, 0, 0));
 
+            AtomicReference<String> cursor = new AtomicReference<>(firstPage.getNextCursor());
+            JButton loadMoreButton = createStyledButton("Load More");
+            loadMoreButton.setEnabled(firstPage.hasMore());
+            loadMoreButton.addActionListener(e -> {
+                Page<User> page = authService.getUsersPage(cursor.get(), ADMIN_PAGE_SIZE);
+                addUserRows(model, page.getItems());
+                cursor.set(page.getNextCursor());
+                loadMoreButton.setEnabled(page.hasMore());
+            });
+            buttonPanel.add(loadMoreButton);
+
             JButton backButton = createStyledButton("Back");
             backButton.setBackground(SECONDARY_COLOR);
             backButton.setForeground(TEXT_COLOR);
@@ -1210,6 +1501,12 @@ public class FlightBookingGUI {
         cardLayout.show(cardPanel, "ALL_USERS");
     }
 
+    private void addUserRows(DefaultTableModel model, List<User> users) {
+        for (User user : users) {
+            model.addRow(new Object[] {user.getUsername(), user.getFullName(), user.getEmail(), user.getRole()});
+        }
+    }
+
     private void showAdminMenu() {
         cardLayout.show(cardPanel, ADMIN_MENU);
     }
@@ -1222,6 +1519,105 @@ public class FlightBookingGUI {
         return bookings.isEmpty() ? null : bookings.get(0);
     }
 
+    // Each click is a new booking request with its own idempotency key. Only when an attempt fails
+    // is its key kept, so that retrying the same flight returns the booking if the failed attempt
+    // was in fact written, instead of booking a second seat.
+    private Booking submitBooking(Flight flight, Map<String, String> retryKeys) {
+        String bookingKey = retryKeys.remove(flight.getFlightNumber());
+        if (bookingKey == null) {
+            bookingKey = UUID.randomUUID().toString();
+        }
+        Booking booking = bookingService.createBooking(currentUser, flight, bookingKey);
+        if (booking == null) {
+            retryKeys.put(flight.getFlightNumber(), bookingKey);
+        }
+        return booking;
+    }
+
+    // A full flight can still be requested; a seat is booked automatically if someone cancels
+    private void offerWaitlist(Flight flight) {
+        int choice = JOptionPane.showConfirmDialog(frame,
+                "Flight " + flight.getFlightNumber() + " is full. Join the waitlist?",
+                "Flight Full", JOptionPane.YES_NO_OPTION);
+        if (choice != JOptionPane.YES_OPTION) {
+            return;
+        }
+        WaitlistEntry entry = bookingService.joinWaitlist(currentUser, flight, WaitlistEntry.PRIORITY_STANDARD);
+        if (entry != null) {
+            JOptionPane.showMessageDialog(frame, "You are on the waitlist. If a seat is cancelled it will be booked for you automatically.", "Waitlist", JOptionPane.INFORMATION_MESSAGE);
+        } else {
+            JOptionPane.showMessageDialog(frame, "Could not join the waitlist. You may already be on it.", "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    // Runs the import off the event thread with a progress dialog, then shows the rejected rows
+    private void importFlights() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Import Flights (" + FlightImporter.CSV_HEADER + ")");
+        if (chooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = chooser.getSelectedFile();
+
+        JDialog progressDialog = new JDialog(frame, "Importing Flights", true);
+        JLabel progressLabel = new JLabel("Reading " + file.getName() + "...", JLabel.CENTER);
+        progressLabel.setBorder(new EmptyBorder(10, 10, 10, 10));
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressDialog.setLayout(new BorderLayout(10, 10));
+        progressDialog.add(progressLabel, BorderLayout.CENTER);
+        progressDialog.add(progressBar, BorderLayout.SOUTH);
+        progressDialog.setSize(400, 120);
+        progressDialog.setLocationRelativeTo(frame);
+        progressDialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+
+        SwingWorker<FlightImportReport, String> worker = new SwingWorker<FlightImportReport, String>() {
+            @Override
+            protected FlightImportReport doInBackground() throws Exception {
+                return flightImporter.importFlights(file.toPath(), (rowsRead, imported, rejected) ->
+                        publish(rowsRead + " rows read, " + imported + " imported, " + rejected + " rejected"));
+            }
+
+            @Override
+            protected void process(List<String> updates) {
+                progressLabel.setText(updates.get(updates.size() - 1));
+            }
+
+            @Override
+            protected void done() {
+                progressDialog.dispose();
+                try {
+                    showImportReport(get());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    JOptionPane.showMessageDialog(frame, "Import failed: " + ex.getCause().getMessage()
+                            + "\nRows imported before the failure were kept.", "Error", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.execute();
+        progressDialog.setVisible(true);
+    }
+
+    private void showImportReport(FlightImportReport report) {
+        String summary = report.getImported() + " flights imported, " + report.getRejected() + " rows rejected.";
+        if (report.getErrors().isEmpty()) {
+            JOptionPane.showMessageDialog(frame, summary, "Import Complete", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        StringBuilder errors = new StringBuilder();
+        for (FlightImportReport.RowError error : report.getErrors()) {
+            errors.append(error).append('\n');
+        }
+        JTextArea errorArea = new JTextArea(errors.toString(), 15, 60);
+        errorArea.setEditable(false);
+        JPanel reportPanel = new JPanel(new BorderLayout(10, 10));
+        reportPanel.add(new JLabel(summary), BorderLayout.NORTH);
+        reportPanel.add(new JScrollPane(errorArea), BorderLayout.CENTER);
+        JOptionPane.showMessageDialog(frame, reportPanel, "Import Complete", JOptionPane.WARNING_MESSAGE);
+    }
+
     private JButton createStyledButton(String text) {
         JButton button = new JButton(text);
         button.setBackground(PRIMARY_COLOR);
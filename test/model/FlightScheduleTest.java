@@ -0,0 +1,72 @@
+package model;
+
+import java.util.EnumSet;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightScheduleTest {
+    private final FlightSchedule schedule = new FlightSchedule("MS777", "EgyptAir", "Cairo", "Paris",
+            LocalTime.of(23, 0), LocalTime.of(3, 30), EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.FRIDAY),
+            LocalDate.of(2026, 1, 1), LocalDate.of(2026, 12, 31), 180, 300);
+
+    @Test
+    void parsesTheDateOfItsOwnInstanceNumber() {
+        LocalDate date = LocalDate.of(2026, 3, 16);
+        assertEquals(date, schedule.parseInstanceDate(schedule.getInstanceNumber(date)));
+        assertEquals(date, schedule.parseInstanceDate("MS777-20260316"));
+    }
+
+    @Test
+    void parsesDatesTheScheduleDoesNotOperateOn() {
+        // Whether the date is bookable is decided separately
+        assertEquals(LocalDate.of(2030, 3, 17), schedule.parseInstanceDate("MS777-20300317"));
+    }
+
+    @Test
+    void rejectsOtherSchedulesNumbers() {
+        assertNull(schedule.parseInstanceDate("MS778-20260316"));
+        assertNull(schedule.parseInstanceDate("MS7777-20260316"));
+        assertNull(schedule.parseInstanceDate("XMS777-20260316"));
+    }
+
+    @Test
+    void rejectsMalformedSuffixes() {
+        assertNull(schedule.parseInstanceDate("MS777"));
+        assertNull(schedule.parseInstanceDate("MS777-"));
+        assertNull(schedule.parseInstanceDate("MS777-2026031"));
+        assertNull(schedule.parseInstanceDate("MS777-202603160"));
+        assertNull(schedule.parseInstanceDate("MS777_20260316"));
+        assertNull(schedule.parseInstanceDate("MS777-2026-316"));
+        assertNull(schedule.parseInstanceDate("MS777-20260230"));
+    }
+
+    @Test
+    void overnightFlightLandsTheNextDay() {
+        Flight flight = schedule.createFlight(LocalDate.of(2026, 3, 16));
+
+        assertEquals("MS777-20260316", flight.getFlightNumber());
+        assertEquals(LocalDateTime.of(2026, 3, 16, 23, 0), flight.getDepartureTime());
+        assertEquals(LocalDateTime.of(2026, 3, 17, 3, 30), flight.getArrivalTime());
+        assertEquals(180, flight.getAvailableSeats());
+    }
+
+    @Test
+    void operatesOnlyOnItsDaysWithinItsDates() {
+        assertTrue(schedule.operatesOn(LocalDate.of(2026, 3, 16)));
+        assertFalse(schedule.operatesOn(LocalDate.of(2026, 3, 17)));
+        assertFalse(schedule.operatesOn(LocalDate.of(2025, 12, 29)));
+        assertFalse(schedule.operatesOn(LocalDate.of(2027, 1, 1)));
+    }
+
+    @Test
+    void parsesDayLists() {
+        assertEquals(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY, DayOfWeek.FRIDAY), FlightSchedule.parseDays("Mon, wed,FRIDAY"));
+        assertNull(FlightSchedule.parseDays("Mon,Funday"));
+        assertNull(FlightSchedule.parseDays("Mo"));
+    }
+}
@@ -0,0 +1,99 @@
+package service;
+
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightImporterTest {
+
+    // The text of each field found by splitFields
+    private static String[] fields(String line) {
+        int[] bounds = new int[16];
+        int count = FlightImporter.splitFields(line, bounds);
+        if (count < 0) {
+            return null;
+        }
+        String[] fields = new String[Math.min(count, 8)];
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = line.substring(bounds[i * 2], bounds[i * 2 + 1]);
+        }
+        return fields;
+    }
+
+    private static LocalDateTime parse(String text) {
+        return FlightImporter.parseDateTime(text, 0, text.length());
+    }
+
+    @Test
+    void splitsPlainFields() {
+        assertArrayEquals(new String[] {"MS100", "EgyptAir", "Cairo", "Paris", "2026-11-01 09:00", "2026-11-01 13:30", "180", "320.50"},
+                fields("MS100,EgyptAir,Cairo,Paris,2026-11-01 09:00,2026-11-01 13:30,180,320.50"));
+    }
+
+    @Test
+    void trimsSpacesAroundFields() {
+        assertArrayEquals(new String[] {"MS100", "Egypt Air", "Cairo"}, fields("  MS100 , Egypt Air  ,Cairo"));
+    }
+
+    @Test
+    void keepsEmptyFields() {
+        assertArrayEquals(new String[] {"A", "", "", "B"}, fields("A,,,B"));
+        assertArrayEquals(new String[] {"A", ""}, fields("A,"));
+    }
+
+    @Test
+    void quotedFieldsMayContainCommasAndEscapedQuotes() {
+        String line = "MS1,\"Air, \"\"Best\"\" Ltd\",Cairo";
+        String[] fields = fields(line);
+
+        assertEquals(3, fields.length);
+        // Bounds exclude the outer quotes; doubled quotes are collapsed later, when the text is copied
+        assertEquals("Air, \"\"Best\"\" Ltd", fields[1]);
+        assertEquals("Cairo", fields[2]);
+    }
+
+    @Test
+    void unterminatedQuoteIsAnError() {
+        assertEquals(-1, FlightImporter.splitFields("MS1,\"Air,Cairo", new int[16]));
+    }
+
+    @Test
+    void countsFieldsBeyondTheColumns() {
+        assertEquals(10, FlightImporter.splitFields("1,2,3,4,5,6,7,8,9,10", new int[16]));
+    }
+
+    @Test
+    void parsesDateTimeWithSpaceOrT() {
+        assertEquals(LocalDateTime.of(2026, 11, 1, 9, 5), parse("2026-11-01 09:05"));
+        assertEquals(LocalDateTime.of(2026, 11, 1, 9, 5), parse("2026-11-01T09:05"));
+    }
+
+    @Test
+    void parsesOptionalSeconds() {
+        assertEquals(LocalDateTime.of(2026, 11, 1, 23, 59, 30), parse("2026-11-01 23:59:30"));
+    }
+
+    @Test
+    void parsesWithinALongerLine() {
+        String line = "MS1,2026-02-28 14:30,x";
+        assertEquals(LocalDateTime.of(2026, 2, 28, 14, 30), FlightImporter.parseDateTime(line, 4, 20));
+    }
+
+    @Test
+    void rejectsMalformedDateTimes() {
+        assertNull(parse("2026-11-01"));
+        assertNull(parse("2026/11/01 09:00"));
+        assertNull(parse("2026-11-01_09:00"));
+        assertNull(parse("2026-11-01 09-00"));
+        assertNull(parse("2026-1a-01 09:00"));
+        assertNull(parse("2026-11-01 09:00:0x"));
+    }
+
+    @Test
+    void rejectsImpossibleDates() {
+        assertNull(parse("2026-02-30 10:00"));
+        assertNull(parse("2026-13-01 10:00"));
+        assertNull(parse("2026-11-01 24:00"));
+    }
+}
@@ -0,0 +1,72 @@
+package service;
+
+import java.util.List;
+import java.util.Arrays;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageTest {
+
+    @Test
+    void cursorRoundTripsKeyParts() {
+        String cursor = Page.encodeCursor("2026-03-15 10:00:00", "BK-42");
+        assertArrayEquals(new String[] {"2026-03-15 10:00:00", "BK-42"}, Page.decodeCursor(cursor, 2));
+    }
+
+    @Test
+    void cursorKeepsEmptyAndNonAsciiParts() {
+        String cursor = Page.encodeCursor("", "Zürich/東京");
+        assertArrayEquals(new String[] {"", "Zürich/東京"}, Page.decodeCursor(cursor, 2));
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        String cursor = Page.encodeCursor("??>>~~", "ÿþ");
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"), cursor);
+    }
+
+    @Test
+    void nullCursorMeansFirstPage() {
+        assertNull(Page.decodeCursor(null, 1));
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> Page.decodeCursor("not base64!", 1));
+    }
+
+    @Test
+    void rejectsCursorWithWrongNumberOfParts() {
+        String cursor = Page.encodeCursor("a", "b");
+        assertThrows(IllegalArgumentException.class, () -> Page.decodeCursor(cursor, 1));
+        assertThrows(IllegalArgumentException.class, () -> Page.decodeCursor(cursor, 3));
+    }
+
+    @Test
+    void extraRowMeansAnotherPage() {
+        Page<String> page = Page.of(Arrays.asList("a", "b", "c"), 2, Function.identity());
+
+        assertEquals(List.of("a", "b"), page.getItems());
+        assertTrue(page.hasMore());
+        assertEquals("b", page.getNextCursor());
+    }
+
+    @Test
+    void noExtraRowMeansLastPage() {
+        Page<String> page = Page.of(Arrays.asList("a", "b"), 2, Function.identity());
+
+        assertEquals(List.of("a", "b"), page.getItems());
+        assertFalse(page.hasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void clampsPageSize() {
+        assertEquals(1, Page.clampPageSize(0));
+        assertEquals(1, Page.clampPageSize(-5));
+        assertEquals(50, Page.clampPageSize(50));
+        assertEquals(Page.MAX_PAGE_SIZE, Page.clampPageSize(Page.MAX_PAGE_SIZE + 1));
+    }
+}
@@ -0,0 +1,33 @@
+package service;
+
+import java.util.Set;
+import java.util.EnumSet;
+import java.time.DayOfWeek;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScheduleDAOTest {
+
+    @Test
+    void mondayIsTheLowestBit() {
+        assertEquals(1, ScheduleDAO.toMask(EnumSet.of(DayOfWeek.MONDAY)));
+        assertEquals(64, ScheduleDAO.toMask(EnumSet.of(DayOfWeek.SUNDAY)));
+        assertEquals(127, ScheduleDAO.toMask(EnumSet.allOf(DayOfWeek.class)));
+        assertEquals(0, ScheduleDAO.toMask(EnumSet.noneOf(DayOfWeek.class)));
+    }
+
+    @Test
+    void everySetOfDaysRoundTrips() {
+        for (int mask = 0; mask < 128; mask++) {
+            Set<DayOfWeek> days = ScheduleDAO.fromMask(mask);
+            assertEquals(Integer.bitCount(mask), days.size());
+            assertEquals(mask, ScheduleDAO.toMask(days));
+        }
+    }
+
+    @Test
+    void fromMaskIgnoresBitsAboveSunday() {
+        assertEquals(EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.FRIDAY), ScheduleDAO.fromMask(0x80 | 0x11));
+    }
+}
@@ -0,0 +1,95 @@
+package service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+    private TimingWheel wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new TimingWheel("test", 10, TimeUnit.MILLISECONDS, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    void runsTaskAfterDelay() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        long start = System.nanoTime();
+        TimingWheel.Timeout timeout = wheel.schedule(ran::countDown, 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(ran.await(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(timeout.isExpired());
+        assertEquals(0, wheel.getOutstandingCount());
+    }
+
+    @Test
+    void delayLongerThanOneRotationWaitsForItsRound() throws InterruptedException {
+        // 8 buckets of 10ms: the timeout hashes to a bucket that is visited several times first
+        CountDownLatch ran = new CountDownLatch(1);
+        long start = System.nanoTime();
+        wheel.schedule(ran::countDown, 250, TimeUnit.MILLISECONDS);
+
+        assertTrue(ran.await(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(250));
+    }
+
+    @Test
+    void cancelledTaskNeverRuns() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        TimingWheel.Timeout timeout = wheel.schedule(runs::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertEquals(0, wheel.getOutstandingCount());
+
+        CountDownLatch later = new CountDownLatch(1);
+        wheel.schedule(later::countDown, 150, TimeUnit.MILLISECONDS);
+        assertTrue(later.await(2, TimeUnit.SECONDS));
+        assertEquals(0, runs.get());
+        assertFalse(timeout.isExpired());
+    }
+
+    @Test
+    void expiredTimeoutCannotBeCancelled() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        TimingWheel.Timeout timeout = wheel.schedule(ran::countDown, 10, TimeUnit.MILLISECONDS);
+
+        assertTrue(ran.await(2, TimeUnit.SECONDS));
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    void failingTaskDoesNotStopTheWheel() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        wheel.schedule(() -> {
+            throw new IllegalStateException("expected by the test");
+        }, 10, TimeUnit.MILLISECONDS);
+        wheel.schedule(ran::countDown, 30, TimeUnit.MILLISECONDS);
+
+        assertTrue(ran.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void rejectsScheduleAfterStop() {
+        wheel.stop();
+        assertThrows(IllegalStateException.class, () -> wheel.schedule(() -> { }, 10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void rejectsNonPositiveSettings() {
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel("bad", 0, TimeUnit.MILLISECONDS, 8));
+        assertThrows(IllegalArgumentException.class, () -> new TimingWheel("bad", 10, TimeUnit.MILLISECONDS, 0));
+    }
+}